@@ -0,0 +1,135 @@
+package com.company;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Starts the in-memory server in the benchmark JVM and connects a CommandSFTP to it.
+ * The server serves the real filesystem, so benchmark files live below target/jmh.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class BenchmarkConnection {
+    public final static String WORK_DIR = "target/jmh";
+    private final static String HOST_FILE = "src/test/java/resources/sftp_hosts_tests";
+
+    private final SFTPInMemoryServer server = new SFTPInMemoryServer();
+    private final CommandSFTP command = new CommandSFTP("localhost", SFTPInMemoryServer.PORT, HOST_FILE);
+    private final String root;
+    private final PrintStream out = System.out;
+
+
+    /**
+     * Starts the server, connects and changes both working directories into a fresh directory.
+     * @param name directory below WORK_DIR to work in
+     * @throws Exception If the server can't be reached.
+     */
+    public BenchmarkConnection(String name) throws Exception {
+        this.root = new File(WORK_DIR, name).getAbsolutePath();
+        delete(Paths.get(this.root));
+        new File(this.root).mkdirs();
+
+        this.server.start();
+        this.command.setJournalFile(this.root + ".journal");
+        this.command.setUser(new User("benchmark", "password"));
+        this.command.connect();
+        this.command.changeCurrentLocalDirectory(this.root);
+        this.command.changeRemoteDirectory(this.root);
+    }
+
+
+    public CommandSFTP getCommand() {
+        return command;
+    }
+
+
+    /**
+     * Gets the directory the benchmark works in. Local and remote paths are the same.
+     * @return absolute path
+     */
+    public String getRoot() {
+        return root;
+    }
+
+
+    /**
+     * Discards console output, so listings don't flood the benchmark log.
+     */
+    public void silence() {
+        System.setOut(discard());
+    }
+
+
+    /**
+     * Creates a print stream that drops everything written to it.
+     * @return the stream
+     */
+    public static PrintStream discard() {
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+
+
+    /**
+     * Disconnects, stops the server and removes the benchmark files.
+     * @throws IOException If the files can't be removed.
+     */
+    public void close() throws IOException {
+        System.setOut(this.out);
+        this.command.quit();
+        this.server.stop();
+        delete(Paths.get(this.root));
+        Files.deleteIfExists(Paths.get(this.root + ".journal"));
+    }
+
+
+    /**
+     * Writes a file of random bytes, so neither the disk nor compression can shortcut it.
+     * @param path file to write
+     * @param size number of bytes
+     * @throws IOException If the file can't be written.
+     */
+    public static void createFile(String path, long size) throws IOException {
+        byte[] block = new byte[1024 * 1024];
+        Random random = new Random(size);
+        try (OutputStream out = new FileOutputStream(path)) {
+            for (long written = 0; written < size; written += block.length) {
+                random.nextBytes(block);
+                out.write(block, 0, (int)Math.min(block.length, size - written));
+            }
+        }
+    }
+
+
+    /**
+     * Deletes a local tree if it exists.
+     * @param root tree to delete
+     * @throws IOException If an entry can't be deleted.
+     */
+    public static void delete(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>)paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
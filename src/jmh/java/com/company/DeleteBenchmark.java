@@ -0,0 +1,61 @@
+package com.company;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to delete a remote directory tree with deleteRemoteDirectory.
+ * Each measurement deletes a freshly built tree of directories x filesPerDirectory files.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DeleteBenchmark {
+    private final static String TREE = "tree";
+
+    @Param({"10"})
+    public int directories;
+
+    @Param({"100", "1000"})
+    public int filesPerDirectory;
+
+    private BenchmarkConnection connection;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = new BenchmarkConnection("delete");
+        connection.silence();
+    }
+
+
+    @Setup(Level.Iteration)
+    public void buildTree() throws Exception {
+        for (int d = 0; d < directories; ++d) {
+            File directory = new File(connection.getRoot() + "/" + TREE + "/dir" + d);
+            directory.mkdirs();
+            for (int f = 0; f < filesPerDirectory; ++f) {
+                new File(directory, "file" + f).createNewFile();
+            }
+        }
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+
+    @Benchmark
+    public void deleteRemoteDirectory() throws Exception {
+        connection.getCommand().deleteRemoteDirectory(TREE);
+    }
+}
@@ -0,0 +1,49 @@
+package com.company;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of listing a large remote directory with listCurrentRemoteFiles.
+ * The listing cache is off, so every call reaches the server.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ListingBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int entries;
+
+    private BenchmarkConnection connection;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = new BenchmarkConnection("listing");
+        for (int i = 0; i < entries; ++i) {
+            new File(connection.getRoot(), "file" + i).createNewFile();
+        }
+        connection.getCommand().setListingCacheTtl(0);
+        connection.silence();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+
+    @Benchmark
+    public void listCurrentRemoteFiles() throws Exception {
+        connection.getCommand().listCurrentRemoteFiles();
+    }
+}
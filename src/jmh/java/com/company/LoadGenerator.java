@@ -0,0 +1,433 @@
+package com.company;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many CommandSFTP sessions at once against the in-memory server and reports
+ * p50/p95/p99 latency and the error rate of every operation type.
+ * Each simulated user has its own User, connection and directory below target/load, and
+ * runs a weighted random mix of connect, ls, get, put and rm operations.
+ * <p>
+ * Usage: mvn -P benchmark test-compile exec:exec@load -Dload.args="--users 16 --operations 200"
+ * <pre>
+ *   --users N          concurrent sessions (default 8)
+ *   --operations N     operations per session (default 100)
+ *   --size BYTES       size of the files transferred by get and put (default 65536)
+ *   --mix op=weight,.. weights of connect, ls, get, put and rm (default connect=1,ls=4,get=2,put=2,rm=1)
+ *   --seed N           random seed, so a mix can be replayed (default 1)
+ * </pre>
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class LoadGenerator {
+    public final static String WORK_DIR = "target/load";
+    private final static String HOST_FILE = "src/test/java/resources/sftp_hosts_tests";
+    private final static String PASSWORD = "password";
+    private final static String SEED_FILE = "seed.bin";
+    private final static String PAYLOAD_FILE = "payload.bin";
+
+    /**
+     * Operations a simulated user can run.
+     */
+    public enum Operation {
+        CONNECT, LS, GET, PUT, RM;
+
+
+        public String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private int users = 8;
+    private int operations = 100;
+    private long size = 64 * 1024;
+    private long seed = 1;
+    private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, ConcurrentLinkedQueue<Long>> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicInteger> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, String> firstErrors = Collections.synchronizedMap(new EnumMap<>(Operation.class));
+    private long elapsedNanos;
+
+
+    /**
+     * Constructor with the default mix.
+     */
+    public LoadGenerator() {
+        this.mix.put(Operation.CONNECT, 1);
+        this.mix.put(Operation.LS, 4);
+        this.mix.put(Operation.GET, 2);
+        this.mix.put(Operation.PUT, 2);
+        this.mix.put(Operation.RM, 1);
+        for (Operation operation : Operation.values()) {
+            this.latencies.put(operation, new ConcurrentLinkedQueue<>());
+            this.errors.put(operation, new AtomicInteger());
+        }
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+        try {
+            generator.parse(args);
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: LoadGenerator [--users N] [--operations N] [--size BYTES] "
+                    + "[--mix connect=1,ls=4,get=2,put=2,rm=1] [--seed N]");
+            System.exit(2);
+        }
+        generator.run();
+        generator.report(System.out);
+    }
+
+
+    /**
+     * Reads the command line options.
+     * @param args options
+     * @throws IllegalArgumentException If an option is unknown or its value is invalid.
+     */
+    public void parse(String[] args) {
+        for (int i = 0; i < args.length; ++i) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[++i];
+            try {
+                switch (args[i - 1]) {
+                    case "--users":
+                        this.users = positive(Integer.parseInt(value));
+                        break;
+                    case "--operations":
+                        this.operations = positive(Integer.parseInt(value));
+                        break;
+                    case "--size":
+                        this.size = positive(Long.parseLong(value));
+                        break;
+                    case "--seed":
+                        this.seed = Long.parseLong(value);
+                        break;
+                    case "--mix":
+                        this.parseMix(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+                }
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number for " + args[i - 1] + ": " + value);
+            }
+        }
+    }
+
+
+    /**
+     * Reads operation weights such as connect=1,ls=4. Operations left out get weight 0.
+     * @param value comma separated op=weight pairs
+     */
+    private void parseMix(String value) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            weights.put(operation, 0);
+        }
+        int total = 0;
+        for (String pair : value.split(",")) {
+            String[] parts = pair.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + pair);
+            }
+            Operation operation;
+            try {
+                operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            }
+            catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown operation in mix: " + parts[0]);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + parts[0]);
+            }
+            weights.put(operation, weight);
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("The mix has no operations");
+        }
+        this.mix.putAll(weights);
+    }
+
+
+    private static int positive(int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Expected a positive number: " + value);
+        }
+        return value;
+    }
+
+
+    private static long positive(long value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Expected a positive number: " + value);
+        }
+        return value;
+    }
+
+
+    /**
+     * Starts the server, connects every user, then lets them all run their operations at once.
+     * Console output of the sessions is discarded while they run.
+     * @throws Exception If the work directory or the server can't be set up.
+     */
+    public void run() throws Exception {
+        BenchmarkConnection.delete(Paths.get(WORK_DIR));
+        SFTPInMemoryServer server = new SFTPInMemoryServer();
+        server.start();
+
+        PrintStream out = System.out;
+        System.setOut(BenchmarkConnection.discard());
+        ExecutorService executor = Executors.newFixedThreadPool(this.users);
+        CountDownLatch ready = new CountDownLatch(this.users);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < this.users; ++i) {
+                Client client = new Client(i, new Random(this.seed + i));
+                futures.add(executor.submit(() -> {
+                    client.run(ready, start);
+                    return null;
+                }));
+            }
+            ready.await();
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            this.elapsedNanos = System.nanoTime() - begin;
+        }
+        finally {
+            executor.shutdownNow();
+            System.setOut(out);
+            server.stop();
+            BenchmarkConnection.delete(Paths.get(WORK_DIR));
+        }
+    }
+
+
+    /**
+     * Prints the latency percentiles and error rate of every operation type.
+     * @param out where to print
+     */
+    public void report(PrintStream out) {
+        int total = 0;
+        for (Operation operation : Operation.values()) {
+            total += this.latencies.get(operation).size();
+        }
+        double seconds = this.elapsedNanos / 1e9;
+        out.printf("%d users, %d operations each, %d byte files%n", this.users, this.operations, this.size);
+        out.printf("%d operations in %.2f s, %.1f ops/s%n%n", total, seconds, seconds > 0 ? total / seconds : 0);
+        out.printf("%-8s %8s %8s %8s %10s %10s %10s%n", "op", "count", "errors", "error%", "p50 ms", "p95 ms", "p99 ms");
+        for (Operation operation : Operation.values()) {
+            List<Long> sorted = new ArrayList<>(this.latencies.get(operation));
+            if (sorted.isEmpty()) {
+                continue;
+            }
+            Collections.sort(sorted);
+            int failed = this.errors.get(operation).get();
+            out.printf("%-8s %8d %8d %8.2f %10.2f %10.2f %10.2f%n", operation.label(), sorted.size(), failed,
+                    100.0 * failed / sorted.size(), percentile(sorted, 0.50), percentile(sorted, 0.95),
+                    percentile(sorted, 0.99));
+        }
+        if (!this.firstErrors.isEmpty()) {
+            out.println();
+            for (Map.Entry<Operation, String> error : this.firstErrors.entrySet()) {
+                out.println("First " + error.getKey().label() + " error: " + error.getValue());
+            }
+        }
+    }
+
+
+    /**
+     * Gets a percentile by the nearest rank method.
+     * @param sorted latencies in nanoseconds, sorted ascending
+     * @param fraction percentile between 0 and 1
+     * @return the latency in milliseconds
+     */
+    static double percentile(List<Long> sorted, double fraction) {
+        int rank = (int)Math.ceil(fraction * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1) / 1e6;
+    }
+
+
+    /**
+     * Picks the next operation by weight.
+     * @param random the user's random source
+     * @return the operation
+     */
+    private Operation pick(Random random) {
+        int total = 0;
+        for (int weight : this.mix.values()) {
+            total += weight;
+        }
+        int roll = random.nextInt(total);
+        for (Map.Entry<Operation, Integer> weight : this.mix.entrySet()) {
+            roll -= weight.getValue();
+            if (roll < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+
+    /**
+     * Records one timed operation.
+     * @param operation operation type
+     * @param nanos how long it took
+     * @param error what went wrong, null on success
+     */
+    private void record(Operation operation, long nanos, Exception error) {
+        this.latencies.get(operation).add(nanos);
+        if (error != null) {
+            this.errors.get(operation).incrementAndGet();
+            String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+            this.firstErrors.putIfAbsent(operation, message);
+        }
+    }
+
+
+    /**
+     * One simulated user with its own session and directories.
+     * The server serves the real filesystem, so remote files are created locally without being timed.
+     */
+    private class Client {
+        private final String name;
+        private final Random random;
+        private final File local;
+        private final File remote;
+        private final CommandSFTP command = new CommandSFTP("localhost", SFTPInMemoryServer.PORT, HOST_FILE);
+        private int deletes = 0;
+
+
+        private Client(int index, Random random) {
+            this.name = "user" + index;
+            this.random = random;
+            File root = new File(WORK_DIR, this.name).getAbsoluteFile();
+            this.local = new File(root, "local");
+            this.remote = new File(root, "remote");
+            this.command.setJournalFile(new File(root, "journal").getPath());
+            this.command.setListingCacheTtl(0);
+        }
+
+
+        /**
+         * Connects, waits for the other users, then runs the operations.
+         * A user that can't make its first connection records the error and runs nothing.
+         */
+        private void run(CountDownLatch ready, CountDownLatch start) throws Exception {
+            try {
+                this.local.mkdirs();
+                this.remote.mkdirs();
+                BenchmarkConnection.createFile(new File(this.remote, SEED_FILE).getPath(), size);
+                BenchmarkConnection.createFile(new File(this.local, PAYLOAD_FILE).getPath(), size);
+                this.connect();
+                this.enterDirectories();
+            }
+            catch (Exception e) {
+                record(Operation.CONNECT, 0, e);
+                return;
+            }
+            finally {
+                ready.countDown();
+            }
+            start.await();
+            try {
+                for (int i = 0; i < operations; ++i) {
+                    this.execute(pick(this.random));
+                }
+            }
+            finally {
+                this.command.quit();
+            }
+        }
+
+
+        private void execute(Operation operation) throws Exception {
+            if (operation == Operation.CONNECT) {
+                this.command.quit();
+            }
+            else if (!this.command.checkConnect()) {
+                //A failed reconnect leaves the session closed, the commands would just return.
+                record(operation, 0, new IOException("Not connected"));
+                return;
+            }
+            String victim = null;
+            if (operation == Operation.RM) {
+                victim = "rm" + this.deletes++;
+                new File(this.remote, victim).createNewFile();
+            }
+
+            Exception error = null;
+            long begin = System.nanoTime();
+            try {
+                switch (operation) {
+                    case CONNECT:
+                        this.connect();
+                        break;
+                    case LS:
+                        this.command.listCurrentRemoteFiles();
+                        break;
+                    case GET:
+                        this.command.getRemoteFile(SEED_FILE);
+                        break;
+                    case PUT:
+                        this.command.uploadRemoteFile(PAYLOAD_FILE);
+                        break;
+                    case RM:
+                        this.command.deleteRemoteFile(victim);
+                        break;
+                }
+            }
+            catch (Exception e) {
+                error = e;
+            }
+            record(operation, System.nanoTime() - begin, error);
+
+            if (operation == Operation.CONNECT && error == null) {
+                this.enterDirectories();
+            }
+        }
+
+
+        /**
+         * Connects with a fresh User, since connecting clears the password.
+         */
+        private void connect() throws Exception {
+            this.command.setUser(new User(this.name, PASSWORD));
+            if (!this.command.connect()) {
+                throw new IOException("Connection refused for " + this.name);
+            }
+        }
+
+
+        private void enterDirectories() throws Exception {
+            this.command.changeCurrentLocalDirectory(this.local.getPath());
+            this.command.changeRemoteDirectory(this.remote.getPath());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.company;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of single file downloads and uploads through CommandSFTP.
+ * Files at or above the segment threshold take the segmented path, as they would in production.
+ * Restrict the sizes with -p size=1024,1048576 in jmh.args.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransferBenchmark {
+    private final static String REMOTE_FILE = "remote.bin";
+    private final static String LOCAL_FILE = "local.bin";
+
+    @Param({"1024", "1048576", "33554432", "1073741824"})
+    public long size;
+
+    private BenchmarkConnection connection;
+    private String downloads;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = new BenchmarkConnection("transfer");
+        BenchmarkConnection.createFile(connection.getRoot() + "/" + REMOTE_FILE, size);
+        BenchmarkConnection.createFile(connection.getRoot() + "/" + LOCAL_FILE, size);
+
+        //Downloads land in their own directory so they don't overwrite the file being read.
+        downloads = connection.getRoot() + "/downloads";
+        new File(downloads).mkdirs();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+
+    @Benchmark
+    public void get() throws Exception {
+        CommandSFTP command = connection.getCommand();
+        command.changeCurrentLocalDirectory(downloads);
+        command.getRemoteFile(REMOTE_FILE);
+        command.changeCurrentLocalDirectory(connection.getRoot());
+    }
+
+
+    @Benchmark
+    public void put() throws Exception {
+        CommandSFTP command = connection.getCommand();
+        command.changeRemoteDirectory(downloads);
+        command.uploadRemoteFile(LOCAL_FILE);
+        command.changeRemoteDirectory(connection.getRoot());
+    }
+}
@@ -0,0 +1,518 @@
+package com.company;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs commands from a script against CommandSFTP without rendering any menus.
+ * One command per line, blank lines and lines starting with # are skipped:
+ * <pre>
+ *   cd DIR, lcd DIR, pwd, lpwd, ls, lls
+ *   get [-r] NAME..., put [-r] NAME..., rm [-r] NAME..., mkdir DIR..., rename OLD NEW
+ *   sync push|pull [delete], workers N, timeout MILLIS, details on|off
+ *   throughput auto|REQUESTS BUFFER_KB, sort name|size|mtime|none [desc], page SIZE [OFFSET]
+ *   format human|json, wait
+ * </pre>
+ * A command ending in &amp; runs in the background while the script carries on, wait blocks until all
+ * background commands are done. Commands that change the working directories or options wait on their own.
+ * The script stops at the first failed command, unless the command starts with - to ignore its failure.
+ * With --format json every result, transfer and error is written to standard output as one JSON object per line.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class BatchRunner {
+    public final static int EXIT_OK = 0;
+    public final static int EXIT_FAILED = 1;
+    public final static int EXIT_USAGE = 2;
+    private final static String USAGE = "Usage: --batch FILE|- --host HOST [--port PORT] --user USER "
+            + "[--password PASSWORD] --known-hosts FILE [--format human|json]\n"
+            + "The password is read from SFTP_PASSWORD when --password is left out.";
+
+    private final CommandSFTP command;
+    private final CommandOutput output;
+    private final ExecutorService background = Executors.newCachedThreadPool();
+    private final List<Future<Boolean>> running = new ArrayList<>();
+
+
+    /**
+     * User for scripts, which never prompts since the script owns standard input.
+     * Unknown host keys are rejected and a wrong password isn't asked again.
+     */
+    private static class BatchUser extends User {
+        private BatchUser(String name, String password) {
+            super(name, password);
+        }
+
+
+        @Override
+        public boolean promptPassword(String s) {
+            return false;
+        }
+
+
+        @Override
+        public boolean promptYesNo(String s) {
+            System.err.println(s);
+            return false;
+        }
+
+
+        @Override
+        public void showMessage(String s) {
+            System.err.println(s);
+        }
+    }
+
+
+    /**
+     * Constructor.
+     * @param command connected command to run the script against
+     */
+    public BatchRunner(CommandSFTP command) {
+        this.command = command;
+        this.output = command.getOutput();
+    }
+
+
+    /**
+     * Connects with the command line options and runs the batch file.
+     * @param args command line arguments
+     * @return the exit code, EXIT_OK if every command succeeded
+     */
+    public static int run(String[] args) {
+        String batch = null;
+        String host = null;
+        String user = null;
+        String password = System.getenv("SFTP_PASSWORD");
+        String knownHosts = null;
+        int port = 22;
+        CommandOutput.Format format = CommandOutput.Format.HUMAN;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                switch (args[i]) {
+                    case "--batch": batch = args[i + 1]; break;
+                    case "--host": host = args[i + 1]; break;
+                    case "--port": port = Integer.parseInt(args[i + 1]); break;
+                    case "--user": user = args[i + 1]; break;
+                    case "--password": password = args[i + 1]; break;
+                    case "--known-hosts": knownHosts = args[i + 1]; break;
+                    case "--format": format = parseFormat(args[i + 1]); break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            if (batch == null || host == null || user == null || password == null || knownHosts == null) {
+                throw new IllegalArgumentException("Missing connection information");
+            }
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        CommandSFTP command = new CommandSFTP(host, port, knownHosts);
+        command.setUser(new BatchUser(user, password));
+        command.setOutputFormat(format);
+        try (BufferedReader reader = batch.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : new BufferedReader(new InputStreamReader(new FileInputStream(batch), StandardCharsets.UTF_8))) {
+            try {
+                if (!command.connect()) {
+                    return EXIT_USAGE;
+                }
+            }
+            catch (JSchException e) {
+                System.err.println("Unable to Create Connection: " + e.getMessage());
+                return EXIT_USAGE;
+            }
+            try {
+                return new BatchRunner(command).run(reader);
+            }
+            finally {
+                command.quit();
+            }
+        }
+        catch (IOException e) {
+            System.err.println("Unable to Read Batch File: " + e.getMessage());
+            return EXIT_USAGE;
+        }
+    }
+
+
+    /**
+     * Runs every command of a script.
+     * @param reader the script
+     * @return EXIT_OK if every command succeeded, EXIT_FAILED otherwise
+     * @throws IOException If the script can't be read.
+     */
+    public int run(BufferedReader reader) throws IOException {
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                ++lineNumber;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (!this.runLine(line, lineNumber)) {
+                    this.awaitBackground();
+                    return EXIT_FAILED;
+                }
+            }
+            return this.awaitBackground() ? EXIT_OK : EXIT_FAILED;
+        }
+        finally {
+            this.background.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Runs one script line, in the background if it ends in &amp;.
+     * @param line trimmed, non empty line
+     * @param lineNumber line number for error messages
+     * @return false if the script should stop
+     */
+    private boolean runLine(String line, int lineNumber) {
+        boolean async = line.endsWith("&");
+        if (async) {
+            line = line.substring(0, line.length() - 1).trim();
+        }
+        boolean ignoreFailure = line.startsWith("-");
+        if (ignoreFailure) {
+            line = line.substring(1).trim();
+        }
+        List<String> words;
+        try {
+            words = tokenize(line);
+        }
+        catch (IllegalArgumentException e) {
+            this.output.error("line " + lineNumber, e.getMessage());
+            return false;
+        }
+        if (words.isEmpty()) {
+            return true;
+        }
+
+        String name = words.get(0);
+        if (name.equals("wait") || changesState(name)) {
+            if (async) {
+                this.output.error("line " + lineNumber, name + " can't run in the background");
+                return false;
+            }
+            if (!this.awaitBackground()) {
+                return false;
+            }
+            if (name.equals("wait")) {
+                return true;
+            }
+        }
+
+        String context = "line " + lineNumber + ": " + line;
+        if (async) {
+            this.running.add(this.background.submit(() -> this.execute(words, context) || ignoreFailure));
+            return true;
+        }
+        return this.execute(words, context) || ignoreFailure;
+    }
+
+
+    /**
+     * Determines whether a command changes the working directories or options, so it can't
+     * overlap with background commands.
+     * @param name command name
+     * @return true if the command has to wait for the background commands
+     */
+    static boolean changesState(String name) {
+        return Arrays.asList("cd", "lcd", "workers", "timeout", "details", "throughput", "sort", "page", "format")
+                .contains(name);
+    }
+
+
+    /**
+     * Waits for every background command.
+     * @return true if all of them succeeded
+     */
+    private boolean awaitBackground() {
+        boolean success = true;
+        for (Future<Boolean> future : this.running) {
+            try {
+                success &= future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                success = false;
+            }
+            catch (ExecutionException e) {
+                this.output.error("background", String.valueOf(e.getCause()));
+                success = false;
+            }
+        }
+        this.running.clear();
+        return success;
+    }
+
+
+    /**
+     * Runs one command, reports a failure through the command output and flushes what the command wrote.
+     * @param words command name and arguments
+     * @param context line number and text for error messages
+     * @return true on success
+     */
+    private boolean execute(List<String> words, String context) {
+        try {
+            if (!this.command.checkConnect()) {
+                throw new IOException("Not connected");
+            }
+            List<String> failures = this.dispatch(words.get(0), words.subList(1, words.size()));
+            for (String failure : failures) {
+                this.output.error(context, failure);
+            }
+            return failures.isEmpty();
+        }
+        catch (SftpException | JSchException | IOException | IllegalArgumentException e) {
+            this.output.error(context, e.getMessage());
+        }
+        finally {
+            this.output.flush();
+        }
+        return false;
+    }
+
+
+    /**
+     * Runs a command against CommandSFTP.
+     * @param name command name
+     * @param args command arguments
+     * @return failures of individual files, empty on success
+     */
+    private List<String> dispatch(String name, List<String> args) throws SftpException, JSchException, IOException {
+        List<String> failures = new ArrayList<>();
+        boolean recursive = !args.isEmpty() && args.get(0).equals("-r");
+        List<String> names = recursive ? args.subList(1, args.size()) : args;
+        switch (name) {
+            case "cd":
+                this.command.changeRemoteDirectory(single(name, args));
+                break;
+            case "lcd":
+                this.command.changeCurrentLocalDirectory(single(name, args));
+                break;
+            case "pwd":
+                this.command.listCurrentRemoteDirectory();
+                break;
+            case "lpwd":
+                this.command.listCurrentLocalDirectory();
+                break;
+            case "ls":
+                this.command.listCurrentRemoteFiles();
+                break;
+            case "lls":
+                this.command.listCurrentLocalDirectoryFiles();
+                break;
+            case "get":
+                required(name, names);
+                if (recursive) {
+                    for (String dir : names) {
+                        this.addFailures(failures, this.command.downloadRemoteDirectory(dir));
+                    }
+                }
+                else if (names.size() == 1 && !TransferEngine.isPattern(names.get(0))) {
+                    this.command.getRemoteFile(names.get(0));
+                }
+                else {
+                    this.addFailures(failures, this.command.getMultipleRemote(names.toArray(new String[0])));
+                }
+                break;
+            case "put":
+                required(name, names);
+                for (String file : names) {
+                    if (recursive) {
+                        this.addFailures(failures, this.command.uploadRemoteDirectory(file));
+                        continue;
+                    }
+                    if (!new File(this.command.getLocalDirectory(), file).isFile()) {
+                        failures.add(file + ": No such file");
+                        continue;
+                    }
+                    this.command.uploadRemoteFile(file);
+                }
+                break;
+            case "rm":
+                required(name, names);
+                for (String file : names) {
+                    if (recursive) {
+                        RemoteTreeDeleter.Report report = this.command.deleteRemoteTree(file);
+                        if (report != null) {
+                            failures.addAll(report.getFailures());
+                        }
+                    }
+                    else {
+                        this.command.deleteRemoteFile(file);
+                    }
+                }
+                break;
+            case "mkdir":
+                required(name, names);
+                for (String dir : names) {
+                    this.command.createRemoteDir(dir);
+                }
+                break;
+            case "rename":
+                if (args.size() != 2) {
+                    throw new IllegalArgumentException("rename needs OLD NEW");
+                }
+                this.command.renameRemote(args.get(0), args.get(1));
+                break;
+            case "sync":
+                if (args.isEmpty() || args.size() > 2 || !(args.get(0).equals("push") || args.get(0).equals("pull"))
+                        || (args.size() == 2 && !args.get(1).equals("delete"))) {
+                    throw new IllegalArgumentException("sync needs push|pull [delete]");
+                }
+                this.addFailures(failures, this.command.syncDirectories(args.get(0).equals("push"), args.size() == 2));
+                break;
+            case "workers":
+                this.command.setTransferWorkers(Integer.parseInt(single(name, args)));
+                break;
+            case "timeout":
+                this.command.setTimeout(Integer.parseInt(single(name, args)));
+                break;
+            case "details":
+                this.command.setFileDisplay(single(name, args).equals("on"));
+                break;
+            case "sort":
+                if (args.isEmpty() || args.size() > 2 || (args.size() == 2 && !args.get(1).equals("desc"))) {
+                    throw new IllegalArgumentException("sort needs name, size, mtime or none, then optionally desc");
+                }
+                this.command.setListingOrder(args.get(0).equals("none") ? null
+                        : ListingSorter.Order.valueOf(args.get(0).toUpperCase()), args.size() == 2);
+                break;
+            case "page":
+                if (args.isEmpty() || args.size() > 2) {
+                    throw new IllegalArgumentException("page needs SIZE and optionally OFFSET");
+                }
+                this.command.setListingPage(args.size() == 2 ? Long.parseLong(args.get(1)) : 0,
+                        Long.parseLong(args.get(0)));
+                break;
+            case "format":
+                this.command.setOutputFormat(parseFormat(single(name, args)));
+                break;
+            case "throughput":
+                if (args.size() == 1 && args.get(0).equals("auto")) {
+                    this.command.tuneThroughput();
+                }
+                else if (args.size() == 2) {
+                    this.command.setThroughputProfile(new ThroughputProfile(Integer.parseInt(args.get(0)),
+                            Integer.parseInt(args.get(1)) * 1024));
+                }
+                else {
+                    throw new IllegalArgumentException("throughput needs auto or REQUESTS BUFFER_KB");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command " + name);
+        }
+        return failures;
+    }
+
+
+    /**
+     * Collects the failed files of a transfer. JSON output gets the whole report instead, with one
+     * summary failure so the failed files aren't reported twice.
+     * @param failures failures of the command
+     * @param report finished report, null if nothing was transferred
+     */
+    private void addFailures(List<String> failures, TransferReport report) {
+        if (report == null) {
+            return;
+        }
+        if (this.output.isJson()) {
+            this.output.report(report);
+            int failed = report.getCount() - report.getSuccessCount();
+            if (failed > 0) {
+                failures.add(failed + " of " + report.getCount() + " files failed");
+            }
+            return;
+        }
+        for (TransferResult result : report.getFailures()) {
+            failures.add(result.toString());
+        }
+    }
+
+
+    private static CommandOutput.Format parseFormat(String format) {
+        switch (format) {
+            case "human": return CommandOutput.Format.HUMAN;
+            case "json": return CommandOutput.Format.JSON;
+            default:
+                throw new IllegalArgumentException("format needs human or json");
+        }
+    }
+
+
+    private static String single(String name, List<String> args) {
+        if (args.size() != 1) {
+            throw new IllegalArgumentException(name + " needs exactly one argument");
+        }
+        return args.get(0);
+    }
+
+
+    private static void required(String name, List<String> args) {
+        if (args.isEmpty()) {
+            throw new IllegalArgumentException(name + " needs at least one name");
+        }
+    }
+
+
+    /**
+     * Splits a line into words on whitespace. Double quotes keep spaces inside a word.
+     * @param line line to split
+     * @return the words
+     * @throws IllegalArgumentException If a quote isn't closed.
+     */
+    static List<String> tokenize(String line) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        boolean inWord = false;
+        for (char c : line.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+                inWord = true;
+            }
+            else if (Character.isWhitespace(c) && !quoted) {
+                if (inWord) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                    inWord = false;
+                }
+            }
+            else {
+                word.append(c);
+                inWord = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unclosed quote");
+        }
+        if (inWord) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+}
@@ -0,0 +1,453 @@
+package com.company;
+
+import com.jcraft.jsch.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leases sftp channels of one session to callers so several operations can run at once.
+ * Leased channels share no working directory, so callers should only pass them absolute paths.
+ * Every client of the session reserves its command channel here too, so the session never has more
+ * than the pool size open however many clients share it.
+ * Channels left idle longer than the idle time are closed in the background, even if nothing is leased again.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class ChannelPool {
+    //OpenSSH allows 10 channels per connection by default, one is kept for exec channels such as checksums.
+    public final static int DEFAULT_MAX_SIZE = 9;
+    public final static long DEFAULT_IDLE_MILLIS = 60 * 1000;
+    private final static long VALIDATE_AFTER_MILLIS = 5 * 1000;
+    private final static ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "channel-pool-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Session session;
+    private final int maxSize;
+    private final int timeout;
+    private final long idleMillis;
+
+    private final Deque<IdleChannel> idle = new ArrayDeque<>();
+    private final Set<ChannelSftp> reserved = new HashSet<>();
+    private int reserving = 0;
+    private int leased = 0;
+    private boolean closed = false;
+    private volatile int bulkRequests = 0;
+    private final ScheduledFuture<?> eviction;
+
+
+    /**
+     * Work done with a leased channel.
+     * @param <T> type of the result
+     */
+    public interface ChannelTask<T> {
+        T run(ChannelSftp channel) throws SftpException;
+    }
+
+
+    /**
+     * A channel waiting in the pool and when it was returned.
+     */
+    private static class IdleChannel {
+        private final ChannelSftp channel;
+        private final long since;
+
+        private IdleChannel(ChannelSftp channel, long since) {
+            this.channel = channel;
+            this.since = since;
+        }
+    }
+
+
+    /**
+     * Constructor with the default pool size and idle time.
+     * @param session connected session to open channels on
+     * @param timeout channel connect timeout in milliseconds
+     */
+    public ChannelPool(Session session, int timeout) {
+        this(session, DEFAULT_MAX_SIZE, timeout, DEFAULT_IDLE_MILLIS);
+    }
+
+
+    /**
+     * Constructor that sets every pool parameter.
+     * @param session connected session to open channels on
+     * @param maxSize most channels open at once, reserved ones included
+     * @param timeout channel connect timeout in milliseconds
+     * @param idleMillis how long an unused channel stays open
+     */
+    public ChannelPool(Session session, int maxSize, int timeout, long idleMillis) {
+        this.session = session;
+        this.maxSize = Math.max(1, maxSize);
+        this.timeout = timeout;
+        this.idleMillis = idleMillis;
+        if (idleMillis > 0) {
+            long period = Math.max(1, idleMillis / 2);
+            this.eviction = evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        }
+        else {
+            this.eviction = null;
+        }
+    }
+
+
+    /**
+     * Leases a healthy channel, waiting for one to be released if the pool is at its limit.
+     * @return a connected channel that must be given back with release or invalidate
+     * @throws JSchException If the pool is closed or a channel can't be opened.
+     */
+    public ChannelSftp lease() throws JSchException {
+        List<ChannelSftp> expired;
+        IdleChannel candidate;
+        synchronized (this) {
+            while (!closed && idle.isEmpty() && leased + reservedCount() >= maxSize) {
+                try {
+                    wait();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JSchException("Interrupted Waiting for Channel");
+                }
+            }
+            if (closed) {
+                throw new JSchException("Channel Pool Closed");
+            }
+            expired = takeExpired();
+            candidate = idle.poll();
+            ++leased;
+        }
+        disconnect(expired);
+        if (candidate != null) {
+            if (isHealthy(candidate)) {
+                return configure(candidate.channel);
+            }
+            candidate.channel.disconnect();
+        }
+
+        try {
+            ChannelSftp channel = (ChannelSftp)this.session.openChannel("sftp");
+            channel.connect(this.timeout);
+            return configure(channel);
+        }
+        catch (JSchException e) {
+            synchronized (this) {
+                --leased;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+
+    /**
+     * Opens a channel that is kept out of the pool, such as a client's command channel, which may change
+     * its working directory. It counts against the pool size until unreserve, so fewer channels can be leased.
+     * Waits for a leased channel to come back if the pool is full, but fails rather than leave nothing to lease.
+     * @return a connected channel that must be given back with unreserve
+     * @throws JSchException If the pool is closed, has no channel to spare or a channel can't be opened.
+     */
+    public ChannelSftp reserve() throws JSchException {
+        List<ChannelSftp> spare = new ArrayList<>();
+        synchronized (this) {
+            if (reservedCount() + 1 >= maxSize) {
+                throw new JSchException("Too Many Clients on Session");
+            }
+            while (!closed && idle.isEmpty() && leased + reservedCount() >= maxSize) {
+                try {
+                    wait();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JSchException("Interrupted Waiting for Channel");
+                }
+            }
+            if (closed) {
+                throw new JSchException("Channel Pool Closed");
+            }
+            //Reserved channels are always new, so a full pool closes an idle channel to make room.
+            if (leased + idle.size() + reservedCount() >= maxSize) {
+                spare.add(idle.removeLast().channel);
+            }
+            ++reserving;
+        }
+        disconnect(spare);
+
+        ChannelSftp channel = null;
+        try {
+            channel = (ChannelSftp)this.session.openChannel("sftp");
+            channel.connect(this.timeout);
+            return configure(channel);
+        }
+        catch (JSchException e) {
+            if (channel != null) {
+                channel.disconnect();
+                channel = null;
+            }
+            throw e;
+        }
+        finally {
+            synchronized (this) {
+                --reserving;
+                if (channel != null) {
+                    reserved.add(channel);
+                }
+                notifyAll();
+            }
+        }
+    }
+
+
+    /**
+     * Closes a reserved channel and frees its place in the pool. Closing it again does nothing.
+     * @param channel channel from reserve
+     */
+    public void unreserve(ChannelSftp channel) {
+        synchronized (this) {
+            if (reserved.remove(channel)) {
+                notifyAll();
+            }
+        }
+        channel.disconnect();
+    }
+
+
+    /**
+     * Returns a leased channel to the pool. Broken channels are closed instead.
+     * @param channel channel from lease
+     */
+    public void release(ChannelSftp channel) {
+        boolean keep = channel.isConnected() && !channel.isClosed();
+        synchronized (this) {
+            --leased;
+            if (keep && !closed) {
+                idle.push(new IdleChannel(channel, System.currentTimeMillis()));
+                channel = null;
+            }
+            notifyAll();
+        }
+        if (channel != null) {
+            channel.disconnect();
+        }
+    }
+
+
+    /**
+     * Closes a leased channel that should not be reused.
+     * @param channel channel from lease
+     */
+    public void invalidate(ChannelSftp channel) {
+        synchronized (this) {
+            --leased;
+            notifyAll();
+        }
+        channel.disconnect();
+    }
+
+
+    /**
+     * Runs a task on a leased channel and returns the channel afterwards.
+     * @param task work to do
+     * @param <T> type of the result
+     * @return the task's result
+     * @throws SftpException If the task fails or no channel could be leased.
+     */
+    public <T> T execute(ChannelTask<T> task) throws SftpException {
+        ChannelSftp channel;
+        try {
+            channel = lease();
+        }
+        catch (JSchException e) {
+            throw new SftpException(ChannelSftp.SSH_FX_NO_CONNECTION, e.getMessage());
+        }
+        try {
+            T result = task.run(channel);
+            release(channel);
+            return result;
+        }
+        catch (SftpException | RuntimeException e) {
+            if (channel.isConnected()) {
+                release(channel);
+            }
+            else {
+                invalidate(channel);
+            }
+            throw e;
+        }
+    }
+
+
+    /**
+     * Closes every channel that has been idle longer than the idle time.
+     * Runs in the background every half idle time.
+     */
+    public void evictIdle() {
+        List<ChannelSftp> expired;
+        synchronized (this) {
+            expired = takeExpired();
+        }
+        disconnect(expired);
+    }
+
+
+    /**
+     * Closes every idle channel, stops the background eviction and refuses new leases.
+     * Leased channels are closed as they come back.
+     */
+    public void close() {
+        if (this.eviction != null) {
+            this.eviction.cancel(false);
+        }
+        List<ChannelSftp> channels = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (IdleChannel entry : idle) {
+                channels.add(entry.channel);
+            }
+            idle.clear();
+            notifyAll();
+        }
+        disconnect(channels);
+    }
+
+
+    /**
+     * Sets the requests each leased channel keeps in flight. Channels pick it up when they are next leased.
+     * @param bulkRequests outstanding request depth, 0 for JSch's default
+     */
+    public void setBulkRequests(int bulkRequests) {
+        this.bulkRequests = Math.max(0, bulkRequests);
+    }
+
+
+    /**
+     * Gets the requests each leased channel keeps in flight.
+     * @return outstanding request depth, 0 for JSch's default
+     */
+    public int getBulkRequests() {
+        return this.bulkRequests;
+    }
+
+
+    /**
+     * Gets the most channels that can be leased at once, which leaves out the reserved ones.
+     * @return maximum number of leased channels
+     */
+    public synchronized int getMaxSize() {
+        return this.maxSize - reservedCount();
+    }
+
+
+    /**
+     * Gets the number of reserved channels, one for each client of the session.
+     * @return reserved channel count
+     */
+    public synchronized int getReserved() {
+        return this.reserved.size();
+    }
+
+
+    /**
+     * Counts the reserved channels and those being opened for reserve. Must hold the pool lock.
+     * @return channels kept out of the pool
+     */
+    private int reservedCount() {
+        return this.reserved.size() + this.reserving;
+    }
+
+
+    /**
+     * Gets the number of channels currently leased.
+     * @return leased channel count
+     */
+    public synchronized int getLeased() {
+        return this.leased;
+    }
+
+
+    /**
+     * Gets the number of channels waiting to be leased.
+     * @return idle channel count
+     */
+    public synchronized int getIdle() {
+        return this.idle.size();
+    }
+
+
+    /**
+     * Removes the idle channels past the idle time. Must hold the pool lock.
+     * @return the removed channels
+     */
+    private List<ChannelSftp> takeExpired() {
+        List<ChannelSftp> expired = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        Iterator<IdleChannel> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            IdleChannel entry = it.next();
+            if (now - entry.since < this.idleMillis) {
+                break;
+            }
+            expired.add(entry.channel);
+            it.remove();
+        }
+        return expired;
+    }
+
+
+    /**
+     * Checks that a channel is still usable. Channels idle for a while are probed with a round trip.
+     * @param entry idle channel
+     * @return true if the channel can be leased, false otherwise.
+     */
+    private boolean isHealthy(IdleChannel entry) {
+        if (!this.session.isConnected() || !entry.channel.isConnected() || entry.channel.isClosed()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - entry.since < VALIDATE_AFTER_MILLIS) {
+            return true;
+        }
+        try {
+            entry.channel.stat("/");
+            return true;
+        }
+        catch (SftpException e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * Applies the outstanding request depth to a channel about to be leased.
+     * @param channel channel to lease
+     * @return the channel
+     */
+    private ChannelSftp configure(ChannelSftp channel) throws JSchException {
+        int bulkRequests = this.bulkRequests;
+        if (bulkRequests > 0 && channel.getBulkRequests() != bulkRequests) {
+            channel.setBulkRequests(bulkRequests);
+        }
+        return channel;
+    }
+
+
+    /**
+     * Disconnects channels outside the pool lock.
+     * @param channels channels to close
+     */
+    private void disconnect(List<ChannelSftp> channels) {
+        for (ChannelSftp channel : channels) {
+            channel.disconnect();
+        }
+    }
+}
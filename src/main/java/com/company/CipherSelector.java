@@ -0,0 +1,190 @@
+package com.company;
+
+import com.jcraft.jsch.Cipher;
+import com.jcraft.jsch.JSch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/**
+ * Picks the session's cipher order and compression before connecting.
+ * Ciphers are ranked by how fast they encrypt on this JVM, measured once and kept for later connections.
+ * Compression is only worth its CPU time when the data actually shrinks, so a sample of it is deflated first.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class CipherSelector {
+    public final static String COMPRESSION = "zlib@openssh.com,zlib,none";
+    public final static String NO_COMPRESSION = "none";
+    public final static double COMPRESSIBLE_RATIO = 0.9;
+    public final static int SAMPLE_SIZE = 128 * 1024;
+    private final static int SAMPLE_BLOCK = 16 * 1024;
+    private final static int BENCHMARK_BLOCK = 64 * 1024;
+    private final static long BENCHMARK_NANOS = 20 * 1000 * 1000;
+
+    //Bytes per second of every cipher measured so far, negative if it can't be used here.
+    private final static Map<String, Double> speeds = new HashMap<>();
+
+
+    /**
+     * Orders ciphers from fastest to slowest on this JVM, dropping those that can't be used.
+     * @param ciphers comma separated cipher names, as in JSch's cipher.c2s
+     * @return the usable ciphers, fastest first, or the input if none can be measured
+     */
+    public static String rankCiphers(String ciphers) {
+        List<String> usable = new ArrayList<>();
+        for (String cipher : ciphers.split(",")) {
+            if (!cipher.isEmpty() && speed(cipher) > 0) {
+                usable.add(cipher);
+            }
+        }
+        if (usable.isEmpty()) {
+            return ciphers;
+        }
+        usable.sort(Comparator.comparingDouble(CipherSelector::speed).reversed());
+        return String.join(",", usable);
+    }
+
+
+    /**
+     * Gets how fast a cipher encrypts, measuring it the first time.
+     * @param cipher cipher name known to JSch
+     * @return bytes per second, negative if the cipher is unknown or unavailable
+     */
+    public static synchronized double speed(String cipher) {
+        Double speed = speeds.get(cipher);
+        if (speed == null) {
+            speed = measure(cipher);
+            speeds.put(cipher, speed);
+        }
+        return speed;
+    }
+
+
+    /**
+     * Encrypts a block repeatedly for a short while after one warm up pass.
+     * @param name cipher name known to JSch
+     * @return bytes per second, negative if the cipher can't be created
+     */
+    private static double measure(String name) {
+        String className = JSch.getConfig(name);
+        if (className == null) {
+            return -1;
+        }
+        Cipher cipher;
+        try {
+            cipher = (Cipher)Class.forName(className).getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException e) {
+            return -1;
+        }
+        try {
+            byte[] key = new byte[64];
+            byte[] iv = new byte[64];
+            new Random().nextBytes(key);
+            cipher.init(Cipher.ENCRYPT_MODE, key, iv);
+
+            byte[] in = new byte[BENCHMARK_BLOCK - BENCHMARK_BLOCK % cipher.getBlockSize()];
+            byte[] out = new byte[in.length];
+            cipher.update(in, 0, in.length, out, 0);
+            long bytes = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                cipher.update(in, 0, in.length, out, 0);
+                bytes += in.length;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < BENCHMARK_NANOS);
+            return bytes * 1e9 / elapsed;
+        }
+        catch (Exception e) {
+            //JSch ciphers declare any exception from init, such as a key length the JCE refuses.
+            return -1;
+        }
+    }
+
+
+    /**
+     * Determines whether JSch can compress, which needs jzlib on the class path.
+     * @return true if zlib compression can be negotiated
+     */
+    public static boolean isCompressionAvailable() {
+        try {
+            Class.forName("com.jcraft.jzlib.ZStream");
+            return true;
+        }
+        catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * Deflates a sample the way the session would and checks that it shrinks enough to be worth it.
+     * @param sample bytes to try
+     * @return true if the sample compresses below COMPRESSIBLE_RATIO, false if not or if it is empty
+     */
+    public static boolean compresses(byte[] sample) {
+        if (sample.length == 0) {
+            return false;
+        }
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        deflater.setInput(sample);
+        deflater.finish();
+        byte[] buffer = new byte[SAMPLE_BLOCK];
+        long compressed = 0;
+        while (!deflater.finished()) {
+            compressed += deflater.deflate(buffer);
+        }
+        deflater.end();
+        return compressed < sample.length * COMPRESSIBLE_RATIO;
+    }
+
+
+    /**
+     * Reads a sample of the data about to be transferred: the start of a file, or the start of
+     * the first few files of a directory.
+     * @param path file or directory to sample
+     * @return up to SAMPLE_SIZE bytes, empty if nothing can be read
+     */
+    public static byte[] sample(File path) {
+        ByteArrayOutputStream sample = new ByteArrayOutputStream();
+        File[] files = path.isDirectory() ? path.listFiles(File::isFile) : new File[] {path};
+        if (files == null) {
+            return sample.toByteArray();
+        }
+        Arrays.sort(files);
+        int block = files.length == 1 ? SAMPLE_SIZE : SAMPLE_BLOCK;
+        byte[] buffer = new byte[block];
+        for (File file : files) {
+            if (sample.size() >= SAMPLE_SIZE) {
+                break;
+            }
+            try (InputStream in = new FileInputStream(file)) {
+                int read = in.read(buffer, 0, Math.min(block, SAMPLE_SIZE - sample.size()));
+                if (read > 0) {
+                    sample.write(buffer, 0, read);
+                }
+            }
+            catch (IOException e) {
+                //Unreadable files are left out of the sample.
+            }
+        }
+        return sample.toByteArray();
+    }
+
+
+    /**
+     * Picks the compression setting for a sample.
+     * @param sample data about to be transferred
+     * @return COMPRESSION if the sample compresses and JSch can compress, NO_COMPRESSION otherwise
+     */
+    public static String compression(byte[] sample) {
+        return isCompressionAvailable() && compresses(sample) ? COMPRESSION : NO_COMPRESSION;
+    }
+}
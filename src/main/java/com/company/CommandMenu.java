@@ -12,6 +12,7 @@ import java.util.Scanner;
  * Shows menu options to user and handles response.
  */
 public class CommandMenu {
+    private static Scanner sc = new Scanner(System.in);
 
     /**
      * Displays the SFTP Menu to the user.
@@ -87,6 +88,9 @@ public class CommandMenu {
                 "Delete File from Remote Directory",
                 "List Files in Current Directory",
                 "Rename File",
+                "Upload Directory to Remote Directory",
+                "Download Directory from Remote Directory",
+                "Sync Local and Remote Directories",
                 "Remote Menu",
                 "Disconnect from Server" });
     }
@@ -99,6 +103,10 @@ public class CommandMenu {
         return processMenu("Options Menu", new String[] {
                 "Set Timeout Length",
                 "Show Full File Details",
+                "Set Parallel Transfers",
+                "Set Throughput Profile",
+                "Select Ciphers and Compression",
+                "Sort and Page Listings",
                 "SFTP Menu",
                 "Disconnect from Server",
         });
@@ -148,7 +156,6 @@ public class CommandMenu {
                 else {
                     System.out.println("\t" + (i + 1) + "." + " " + options[i]); }
                 }
-        Scanner sc = new Scanner(System.in);
         String userString = sc.nextLine();
         int userInput;
         try {
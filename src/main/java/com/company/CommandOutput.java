@@ -0,0 +1,307 @@
+package com.company;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Writes command results to standard output through one buffered writer, as text for people or as JSON lines
+ * for other programs. Listing entries and transfer results are buffered and written in large blocks;
+ * messages and errors, which may be prompts, are flushed at once, and every command flushes when it is done.
+ * The writer follows System.out, so replacing the stream redirects the output after flushing what was pending.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class CommandOutput {
+    public final static int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format { HUMAN, JSON }
+
+    private Format format = Format.HUMAN;
+    private PrintStream target = null;
+    private PrintWriter writer = null;
+
+
+    /**
+     * Sets how results are written.
+     * @param format HUMAN for text, JSON for one JSON object per line
+     */
+    public synchronized void setFormat(Format format) {
+        this.format = format;
+    }
+
+
+    /**
+     * Gets how results are written.
+     * @return the format
+     */
+    public synchronized Format getFormat() {
+        return this.format;
+    }
+
+
+    /**
+     * Determines whether results are written as JSON lines.
+     * @return true for JSON lines
+     */
+    public synchronized boolean isJson() {
+        return this.format == Format.JSON;
+    }
+
+
+    /**
+     * Gets the writer for the current System.out, flushing and replacing it if the stream was changed.
+     * @return the buffered writer
+     */
+    private PrintWriter writer() {
+        if (this.writer == null || this.target != System.out) {
+            if (this.writer != null) {
+                this.writer.flush();
+            }
+            this.target = System.out;
+            this.writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(this.target), BUFFER_SIZE));
+        }
+        return this.writer;
+    }
+
+
+    /**
+     * Writes a message or prompt as is, or as a message record without surrounding white space.
+     * @param text message text
+     */
+    public synchronized void message(String text) {
+        if (this.format == Format.HUMAN) {
+            this.writer().print(text);
+        }
+        else if (!text.trim().isEmpty()) {
+            this.writer().println(new Record("message").field("text", text.trim()));
+        }
+        this.flush();
+    }
+
+
+    /**
+     * Reports an error, on standard error as text or as an error record on standard output.
+     * @param context what failed, such as the command
+     * @param message why it failed
+     */
+    public synchronized void error(String context, String message) {
+        if (this.format == Format.HUMAN) {
+            this.flush();
+            System.err.println(context + ": " + message);
+            return;
+        }
+        this.writer().println(new Record("error").field("context", context).field("message", message));
+        this.flush();
+    }
+
+
+    /**
+     * Writes a working directory.
+     * @param kind "pwd" for the remote directory, "lpwd" for the local one
+     * @param path absolute path
+     */
+    public synchronized void path(String kind, String path) {
+        if (this.format == Format.HUMAN) {
+            this.writer().println(path);
+        }
+        else {
+            this.writer().println(new Record(kind).field("path", path));
+        }
+        this.flush();
+    }
+
+
+    /**
+     * Writes the empty line that starts a listing in text, nothing in JSON.
+     */
+    public synchronized void startListing() {
+        if (this.format == Format.HUMAN) {
+            this.writer().println();
+        }
+    }
+
+
+    /**
+     * Writes one line prepared by remoteEntry or localEntry, without flushing.
+     * @param line the line
+     */
+    public synchronized void line(String line) {
+        this.writer().println(line);
+    }
+
+
+    /**
+     * Formats a remote listing entry.
+     * @param entry the entry
+     * @param details true for the long listing line in text
+     * @return the text line, or a JSON object with every attribute
+     */
+    public synchronized String remoteEntry(ChannelSftp.LsEntry entry, boolean details) {
+        if (this.format == Format.HUMAN) {
+            return details ? entry.getLongname() : entry.getFilename();
+        }
+        SftpATTRS attrs = entry.getAttrs();
+        Record record = new Record("entry")
+                .field("name", entry.getFilename())
+                .field("longname", entry.getLongname())
+                .field("size", attrs.getSize())
+                .field("uid", attrs.getUId())
+                .field("gid", attrs.getGId())
+                .field("permissions", attrs.getPermissions())
+                .field("mode", attrs.getPermissionsString())
+                .field("atime", attrs.getATime())
+                .field("mtime", attrs.getMTime())
+                .field("dir", attrs.isDir())
+                .field("link", attrs.isLink())
+                .field("flags", attrs.getFlags());
+        String[] extended = attrs.getExtended();
+        if (extended != null) {
+            Record pairs = new Record(null);
+            for (int i = 0; i + 1 < extended.length; i += 2) {
+                pairs.field(extended[i], extended[i + 1]);
+            }
+            record.raw("extended", pairs.toString());
+        }
+        return record.toString();
+    }
+
+
+    /**
+     * Formats a local listing entry.
+     * @param path the entry
+     * @param attrs its attributes, null if they weren't read
+     * @param details true for the full path in text
+     * @return the text line, or a JSON object with the attributes
+     */
+    public synchronized String localEntry(Path path, BasicFileAttributes attrs, boolean details) {
+        String name = path.getFileName().toString();
+        if (this.format == Format.HUMAN) {
+            return details ? path.toString() : name;
+        }
+        Record record = new Record("local").field("name", name).field("path", path.toString());
+        if (attrs != null) {
+            record.field("size", attrs.size())
+                    .field("mtime", attrs.lastModifiedTime().toMillis() / 1000)
+                    .field("dir", attrs.isDirectory())
+                    .field("link", attrs.isSymbolicLink());
+        }
+        return record.toString();
+    }
+
+
+    /**
+     * Writes the outcome of a batch of transfers: the failures and a summary, or one record for each
+     * result the report kept and a summary record.
+     * @param report finished report
+     */
+    public synchronized void report(TransferReport report) {
+        PrintWriter out = this.writer();
+        if (this.format == Format.HUMAN) {
+            for (TransferResult result : report.getFailures()) {
+                out.println(result);
+            }
+            out.println(report);
+        }
+        else {
+            for (TransferResult result : report.getResults()) {
+                out.println(new Record("transfer")
+                        .field("source", result.getSource())
+                        .field("destination", result.getDestination())
+                        .field("success", result.isSuccess())
+                        .field("bytes", result.getBytes())
+                        .field("millis", result.getElapsedMillis())
+                        .field("error", result.getError()));
+            }
+            out.println(new Record("report")
+                    .field("files", report.getCount())
+                    .field("succeeded", report.getSuccessCount())
+                    .field("bytes", report.getTotalBytes())
+                    .field("millis", report.getElapsedMillis()));
+        }
+        this.flush();
+    }
+
+
+    /**
+     * Writes out everything buffered.
+     */
+    public synchronized void flush() {
+        if (this.writer != null) {
+            this.writer.flush();
+        }
+    }
+
+
+    /**
+     * One JSON object written as a single line.
+     */
+    private static class Record {
+        private final StringBuilder json = new StringBuilder("{");
+
+        private Record(String type) {
+            if (type != null) {
+                this.field("type", type);
+            }
+        }
+
+        private Record field(String name, String value) {
+            return this.raw(name, value == null ? "null" : quote(value));
+        }
+
+        private Record field(String name, long value) {
+            return this.raw(name, Long.toString(value));
+        }
+
+        private Record field(String name, boolean value) {
+            return this.raw(name, Boolean.toString(value));
+        }
+
+        private Record raw(String name, String json) {
+            if (this.json.length() > 1) {
+                this.json.append(',');
+            }
+            this.json.append(quote(name)).append(':').append(json);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return this.json + "}";
+        }
+    }
+
+
+    /**
+     * Quotes a string for JSON.
+     * @param value the string
+     * @return the quoted and escaped string
+     */
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int)c));
+                    }
+                    else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -2,10 +2,17 @@ package com.company;
 
 import com.jcraft.jsch.*;
 
+import javax.management.JMException;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
-import java.util.Vector;
+import java.util.function.Consumer;
 
 /**
  * Handles the logging in and the commands sent to the server.
@@ -18,16 +25,49 @@ public class CommandSFTP {
     private String knownHostsFile = "";
     private int portNumber;
     private final static String [] hostChecking = {"StrictHostKeyChecking", "ask"};
+    private final static int MAX_VERIFY_ATTEMPTS = 3;
+    public final static int DEFAULT_KEEPALIVE_MILLIS = 15 * 1000;
+    public final static int DEFAULT_KEEPALIVE_COUNT = 3;
+    public final static int DEFAULT_RECONNECT_ATTEMPTS = 5;
+    public final static long DEFAULT_RECONNECT_DELAY = 500;
+    private final static long MAX_RECONNECT_DELAY = 30 * 1000;
     private User user = null;
+    private byte[] password = null;
 
     private JSch jsch = null;
     private Session session = null;
     private ChannelSftp channel = null;
+    private ChannelPool pool = null;
+    private SessionManager sessionManager = null;
+    private final RemoteListingCache listingCache = new RemoteListingCache();
+    private final RemoteAttributeCache attributeCache = new RemoteAttributeCache();
+    private TransferJournal journal = new TransferJournal(TransferJournal.defaultFile());
+    private final TransferMetrics metrics = new TransferMetrics();
 
     private int timeout = 10000;
+    private int keepAliveMillis = DEFAULT_KEEPALIVE_MILLIS;
+    private int keepAliveCount = DEFAULT_KEEPALIVE_COUNT;
+    private int reconnectAttempts = DEFAULT_RECONNECT_ATTEMPTS;
+    private long reconnectDelay = DEFAULT_RECONNECT_DELAY;
+    private int transferWorkers = TransferEngine.DEFAULT_WORKERS;
+    private long segmentThreshold = SegmentedTransfer.DEFAULT_THRESHOLD;
+    private TransferChecksum.Algorithm checksumAlgorithm = TransferChecksum.Algorithm.SHA256;
+    private boolean checksumManifest = false;
+    private boolean verifyChecksums = false;
+    private boolean remoteChecksums = true;
+    private ThroughputProfile throughputProfile = ThroughputProfile.defaults();
+    private boolean autoTune = false;
+    private boolean selectCiphers = false;
+    private String compressionSample = null;
 
     private boolean fileDisplay = false;
     private boolean checkConnect = false;
+    private ListingSorter.Order listingOrder = null;
+    private boolean listingDescending = false;
+    private long pageOffset = 0;
+    private long pageSize = 0;
+    private int listingMemoryRows = ListingSorter.DEFAULT_MEMORY_ROWS;
+    private final CommandOutput output = new CommandOutput();
 
 
     private static Scanner sc = new Scanner(System.in);
@@ -61,10 +101,15 @@ public class CommandSFTP {
 
     /**
      * Returns whether or not the user is currently connected.
+     * A connection that was lost without quitting is reconnected first.
      * @return true if connected, false otherwise.
      */
     public boolean checkConnect() {
-        if (this.session != null && this.session.isConnected() && this.checkConnect) {
+        if (this.session != null && this.session.isConnected() && this.checkConnect
+                && this.channel != null && this.channel.isConnected()) {
+            return true;
+        }
+        else if (this.checkConnect && this.reconnect()) {
             return true;
         }
         else {
@@ -74,6 +119,136 @@ public class CommandSFTP {
     }
 
 
+    /**
+     * Connects again after the connection was lost, waiting twice as long after each failed attempt.
+     * The remote and local working directories are restored, and the caches are dropped since the server
+     * may have changed in the meantime.
+     * @return true if connected again, false after the last attempt failed.
+     */
+    private synchronized boolean reconnect() {
+        if (this.session != null && this.session.isConnected() && this.channel != null && this.channel.isConnected()) {
+            return true;
+        }
+        String remoteDirectory = null;
+        String localDirectory = null;
+        if (this.channel != null) {
+            try {
+                remoteDirectory = this.channel.pwd();
+            }
+            catch (SftpException e) {
+                remoteDirectory = null;
+            }
+            localDirectory = this.channel.lpwd();
+        }
+        this.disconnectQuietly();
+
+        long delay = this.reconnectDelay;
+        for (int attempt = 1; attempt <= this.reconnectAttempts; ++attempt) {
+            showMessage("Connection Lost, Reconnecting (" + attempt + "/" + this.reconnectAttempts + ")\n");
+            try {
+                this.setSession();
+                this.connectSession();
+                this.channelConnect();
+                if (remoteDirectory != null) {
+                    this.channel.cd(remoteDirectory);
+                }
+                if (localDirectory != null) {
+                    this.channel.lcd(localDirectory);
+                }
+                this.listingCache.clear();
+                this.attributeCache.clear();
+                this.applyThroughputProfile(this.throughputProfile);
+                showMessage("Reconnected\n");
+                return true;
+            }
+            catch (JSchException | IOException | SftpException e) {
+                this.disconnectQuietly();
+            }
+            if (attempt < this.reconnectAttempts) {
+                try {
+                    Thread.sleep(delay);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                delay = Math.min(delay * 2, MAX_RECONNECT_DELAY);
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Closes what is left of a lost connection. Shared sessions are left to the session manager.
+     */
+    private void disconnectQuietly() {
+        if (this.pool != null && this.sessionManager == null) {
+            this.pool.close();
+        }
+        this.channelDisconnect();
+        if (this.session != null && this.sessionManager == null) {
+            this.session.disconnect();
+        }
+    }
+
+
+    /**
+     * Reconnects if an operation failed because the connection was lost.
+     * @param e the failure
+     * @return true if the connection was lost and is back, so the operation can run again
+     */
+    private boolean recover(SftpException e) {
+        boolean lost = e.id == ChannelSftp.SSH_FX_NO_CONNECTION || e.id == ChannelSftp.SSH_FX_CONNECTION_LOST
+                || this.session == null || !this.session.isConnected()
+                || this.channel == null || !this.channel.isConnected();
+        return lost && this.checkConnect && this.reconnect();
+    }
+
+
+    /**
+     * Runs an operation that can safely run twice, running it again after a lost connection is restored.
+     * @param operation the operation, which must look up the channel or pool each time it runs
+     * @param <T> type of the result
+     * @return the operation's result
+     */
+    private <T> T retry(TransferMetrics.Timed<T> operation) throws SftpException {
+        try {
+            return operation.run();
+        }
+        catch (SftpException e) {
+            if (!this.recover(e)) {
+                throw e;
+            }
+            return operation.run();
+        }
+    }
+
+
+    /**
+     * Sets how often the server is asked whether it is still there while the connection is idle.
+     * Takes effect on the next connect of a session this command owns. JSch sends the messages when the
+     * session's read timeout expires, so the interval is also the session timeout until setTimeout changes it.
+     * @param intervalMillis time between keepalive messages, 0 to turn them off
+     * @param count unanswered messages after which the connection counts as lost
+     */
+    public void setKeepAlive(int intervalMillis, int count) {
+        this.keepAliveMillis = intervalMillis;
+        this.keepAliveCount = count;
+    }
+
+
+    /**
+     * Sets how a lost connection is reconnected.
+     * @param attempts connection attempts before giving up, 0 to disconnect at once
+     * @param delayMillis wait after the first failed attempt, doubled after each one up to 30 seconds
+     */
+    public void setReconnect(int attempts, long delayMillis) {
+        this.reconnectAttempts = Math.max(0, attempts);
+        this.reconnectDelay = Math.max(0, delayMillis);
+    }
+
+
     /**
      * Prompts user to enter server information.
      */
@@ -130,35 +305,125 @@ public class CommandSFTP {
         }
 
         this.setKnownHostsFile(this.knownHostsFile);
+        this.takePassword();
+        this.listingCache.clear();
+        this.attributeCache.clear();
+        this.remoteChecksums = true;
         this.setSession();
         this.connectSession();
         this.channelConnect();
 
         this.checkConnect = this.session.isConnected();
-        this.user.clearPass();
+        try {
+            this.metrics.register(this.getHostKey());
+        }
+        catch (JMException e) {
+            showMessage("Unable to Publish Transfer Metrics\n");
+        }
+        if (this.autoTune) {
+            this.autoTuneThroughput();
+        }
+        else {
+            this.applyThroughputProfile(this.throughputProfile);
+        }
+        this.resumePendingTransfers();
         return true;
     }
 
 
+    /**
+     * Moves a password the user entered into this command, which keeps it until quitting so a lost
+     * connection can be reconnected without asking again. The user is left without a password.
+     */
+    private void takePassword() {
+        String entered = this.user.getPassword();
+        if (entered != null && !entered.isEmpty()) {
+            this.clearPassword();
+            this.password = entered.getBytes(StandardCharsets.UTF_8);
+        }
+        this.user.clearPass();
+    }
+
+
+    /**
+     * Overwrites and drops the password kept for reconnecting.
+     */
+    private void clearPassword() {
+        if (this.password != null) {
+            Arrays.fill(this.password, (byte)0);
+            this.password = null;
+        }
+    }
+
+
     /**
      * Requests a session from jsch with the server information and sets the user password.
      * @throws JSchException If an error occurs when setting up the session.
      */
     private void setSession() throws JSchException {
+        if (this.sessionManager != null) {
+            return;
+        }
         this.session = this.jsch.getSession(this.user.getUserName(), this.hostIP, this.portNumber);
         this.session.setConfig(hostChecking[0], hostChecking[1]);
         this.session.setUserInfo(this.user);
-        this.session.setPassword(this.user.getPassword());
+        this.session.setPassword(this.password);
+        if (this.keepAliveMillis > 0) {
+            this.session.setServerAliveInterval(this.keepAliveMillis);
+            this.session.setServerAliveCountMax(this.keepAliveCount);
+        }
+        if (this.selectCiphers) {
+            this.selectCiphers();
+        }
+    }
+
+
+    /**
+     * Orders the session's ciphers by their speed on this JVM and turns on compression if the data compresses.
+     * The data is sampled from the compression sample, or the local working directory if none is set.
+     */
+    private void selectCiphers() {
+        String ciphers = CipherSelector.rankCiphers(JSch.getConfig("cipher.c2s"));
+        this.session.setConfig("cipher.c2s", ciphers);
+        this.session.setConfig("cipher.s2c", ciphers);
+
+        File sample = new File(this.compressionSample != null ? this.compressionSample : System.getProperty("user.dir"));
+        String compression = CipherSelector.compression(CipherSelector.sample(sample));
+        this.session.setConfig("compression.c2s", compression);
+        this.session.setConfig("compression.s2c", compression);
+        showMessage("Ciphers: " + ciphers + "\nCompression: " + compression + "\n");
     }
 
 
     /**
-     * Connects the channel to the current session.
+     * Connects the channel to the current session. The channel is reserved from the session's pool,
+     * so clients sharing a managed session stay within its channel limit together.
      * @throws JSchException If an error occurs when setting up the session.
      */
-    private void channelConnect() throws JSchException{
-        this.channel = (ChannelSftp)this.session.openChannel("sftp");
-        this.channel.connect(this.timeout);
+    private void channelConnect() throws JSchException, IOException {
+        if (this.sessionManager != null) {
+            this.pool = this.sessionManager.getPool(this.hostConfig());
+        }
+        else {
+            this.pool = new ChannelPool(this.session, this.timeout);
+        }
+        this.channel = this.pool.reserve();
+    }
+
+
+    /**
+     * Closes the command channel and gives its place in the pool back.
+     */
+    private void channelDisconnect() {
+        if (this.channel == null) {
+            return;
+        }
+        if (this.pool != null) {
+            this.pool.unreserve(this.channel);
+        }
+        else {
+            this.channel.disconnect();
+        }
     }
 
 
@@ -168,10 +433,34 @@ public class CommandSFTP {
      * @throws IOException If an error occurs when setting the known hosts file.
      */
     private void connectSession() throws JSchException, IOException {
+        if (this.sessionManager != null) {
+            this.session = this.sessionManager.getSession(this.hostConfig());
+            return;
+        }
         this.session.connect(this.timeout);
     }
 
 
+    /**
+     * Describes the current server to the session manager.
+     * @return the server's connection settings.
+     */
+    private SessionManager.HostConfig hostConfig() {
+        return new SessionManager.HostConfig(this.user, this.password, this.hostIP, this.portNumber,
+                this.knownHostsFile, this.timeout);
+    }
+
+
+    /**
+     * Shares sessions through a session manager instead of owning one.
+     * Quitting then leaves the session open for the next command to the same server.
+     * @param sessionManager manager to get sessions from, null to own the session again.
+     */
+    public void setSessionManager(SessionManager sessionManager) {
+        this.sessionManager = sessionManager;
+    }
+
+
     /**
      * Renames a local file.
      * @param oldName original file name
@@ -218,7 +507,15 @@ public class CommandSFTP {
         if (!this.checkConnect()) {
             return;
         }
-        channel.rename(oldName, newName);
+        String oldPath = this.remoteAbsolutePath(oldName);
+        String newPath = this.remoteAbsolutePath(newName);
+        this.metrics.time("rename", () -> this.pool.execute(c -> {
+            c.rename(oldPath, newPath);
+            return null;
+        }));
+        this.listingCache.invalidateTree(oldPath);
+        this.listingCache.invalidateParent(newPath);
+        this.attributeCache.move(oldPath, newPath);
     }
 
 
@@ -271,7 +568,16 @@ public class CommandSFTP {
         if (!this.checkConnect()) {
             return;
         }
-        this.channel.rm(fileName);
+        String path = this.remoteAbsolutePath(fileName);
+        if (Boolean.FALSE.equals(this.attributeCache.exists(path))) {
+            throw new SftpException(ChannelSftp.SSH_FX_NO_SUCH_FILE, "No such file");
+        }
+        this.metrics.time("rm", () -> this.pool.execute(c -> {
+            c.rm(path);
+            return null;
+        }));
+        this.listingCache.invalidateParent(path);
+        this.attributeCache.putAbsent(path);
     }
 
 
@@ -290,8 +596,203 @@ public class CommandSFTP {
             showMessage("Unable to Find Local File: " + fileName );
             return;
         }
-        this.channel.put(absoluteFileName, this.channel.pwd());
+        String destination = this.remoteAbsolutePath(testExists.getName());
+        if (Boolean.TRUE.equals(this.attributeCache.isDirectory(destination))) {
+            throw new SftpException(ChannelSftp.SSH_FX_FAILURE, destination + " is a directory");
+        }
+        if (this.transferWorkers > 1 && testExists.length() >= this.segmentThreshold) {
+            SegmentedTransfer transfer = new SegmentedTransfer(this.pool, this.transferWorkers);
+            transfer.setMetrics(this.metrics);
+            transfer.setBufferSize(this.throughputProfile.getBufferSize());
+            TransferResult result = transfer.upload(absoluteFileName, destination);
+            this.metrics.recordTransfer(true, result);
+            this.listingCache.invalidateParent(destination);
+            this.attributeCache.invalidateTree(destination);
+            if (!result.isSuccess()) {
+                throw new SftpException(ChannelSftp.SSH_FX_FAILURE, result.getError());
+            }
+            this.attributeCache.putExists(destination, false);
+            return;
+        }
+        TransferJournal.Entry entry = new TransferJournal.Entry(TransferJournal.PUT, this.getHostKey(),
+                absoluteFileName, destination, testExists.length(), testExists.lastModified() / 1000, 0);
+        this.journal.begin(entry);
+        this.verifyAndComplete(entry, this.journaledTransfer(entry));
+    }
+
+
+    /**
+     * Runs a journaled transfer from the start, resuming it from the journal whenever the connection
+     * is lost and restored.
+     * @param entry journal entry of the transfer
+     * @return checksum of the whole file computed during the transfer, null if checksums are off
+     */
+    private String journaledTransfer(TransferJournal.Entry entry) throws SftpException {
+        boolean get = entry.getDirection().equals(TransferJournal.GET);
+        boolean resume = false;
+        for (int attempt = 0; ; ++attempt) {
+            try {
+                if (get) {
+                    long local = new File(entry.getDestination()).length();
+                    return this.journaledGet(entry, resume ? Math.min(entry.getConfirmed(), local) : 0);
+                }
+                return this.journaledPut(entry, resume);
+            }
+            catch (SftpException e) {
+                if (attempt >= this.reconnectAttempts || !this.recover(e)) {
+                    throw e;
+                }
+                showMessage("Resuming " + entry.getSource() + "\n");
+                resume = true;
+            }
+        }
+    }
+
+
+    /**
+     * Uploads a journaled file. When resuming, ChannelSftp.RESUME continues after the bytes the server already has.
+     * @param entry journal entry of the transfer
+     * @param resume true to continue a previous upload, false to start from zero
+     * @return checksum of the whole file computed while uploading, null if checksums are off
+     */
+    private String journaledPut(TransferJournal.Entry entry, boolean resume) throws SftpException {
+        return this.recordTransfer(true, () -> this.pool.execute(channel -> {
+            TransferChecksum checksum = this.newChecksum();
+            long offset = 0;
+            if (resume) {
+                offset = channel.stat(entry.getDestination()).getSize();
+            }
+            byte[] buffer = LocalFileIO.borrowArray(this.throughputProfile.getBufferSize());
+            try (FileChannel file = FileChannel.open(Paths.get(entry.getSource()), StandardOpenOption.READ);
+                 InputStream in = LocalFileIO.newInputStream(file, offset, Long.MAX_VALUE);
+                 OutputStream out = channel.put(entry.getDestination(), this.metrics.monitor(true, null, 0),
+                         resume ? ChannelSftp.RESUME : ChannelSftp.OVERWRITE, 0)) {
+                if (checksum != null && offset > 0) {
+                    checksum.update(new File(entry.getSource()), offset);
+                }
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, read);
+                    if (checksum != null) {
+                        checksum.update(buffer, 0, read);
+                    }
+                    offset += read;
+                    this.journal.update(entry, offset);
+                }
+            }
+            catch (IOException e) {
+                this.journal.checkpoint();
+                throw new SftpException(ChannelSftp.SSH_FX_FAILURE, e.getMessage());
+            }
+            finally {
+                LocalFileIO.release(buffer);
+                this.listingCache.invalidateParent(entry.getDestination());
+                this.attributeCache.invalidateTree(entry.getDestination());
+            }
+            this.attributeCache.putExists(entry.getDestination(), false);
+            return checksum == null ? null : checksum.getValue();
+        }));
+    }
+
+
+    /**
+     * Runs a single file transfer and records it in the metrics.
+     * @param upload true for an upload, false for a download
+     * @param transfer the transfer
+     * @return what the transfer returns
+     */
+    private String recordTransfer(boolean upload, TransferMetrics.Timed<String> transfer) throws SftpException {
+        long start = System.currentTimeMillis();
+        boolean success = false;
+        try {
+            String result = transfer.run();
+            success = true;
+            return result;
+        }
+        finally {
+            this.metrics.recordTransfer(upload, success, System.currentTimeMillis() - start);
+        }
+    }
+
+
+    /**
+     * Continues the transfers left in the journal for this host.
+     * A transfer whose source changed size or modification time since it started is restarted from zero.
+     */
+    public void resumePendingTransfers() {
+        if (!this.checkConnect()) {
+            return;
+        }
+        for (TransferJournal.Entry entry : this.journal.pending(this.getHostKey())) {
+            try {
+                long size;
+                long mtime;
+                if (entry.getDirection().equals(TransferJournal.GET)) {
+                    SftpATTRS attrs = this.remoteStat(entry.getSource());
+                    size = attrs.getSize();
+                    mtime = attrs.getMTime();
+                }
+                else {
+                    File source = new File(entry.getSource());
+                    if (!source.isFile()) {
+                        showMessage("Dropping Transfer, Source is Gone: " + entry.getSource() + "\n");
+                        this.journal.complete(entry);
+                        continue;
+                    }
+                    size = source.length();
+                    mtime = source.lastModified() / 1000;
+                }
+
+                boolean resume = entry.matches(size, mtime);
+                TransferJournal.Entry current = entry;
+                if (resume) {
+                    showMessage("Resuming " + entry.getSource() + "\n");
+                }
+                else {
+                    showMessage("Source Changed, Restarting " + entry.getSource() + "\n");
+                    current = new TransferJournal.Entry(entry.getDirection(), entry.getHost(),
+                            entry.getSource(), entry.getDestination(), size, mtime, 0);
+                    this.journal.begin(current);
+                }
+
+                String checksum;
+                if (current.getDirection().equals(TransferJournal.GET)) {
+                    long local = new File(current.getDestination()).length();
+                    checksum = this.journaledGet(current, resume ? Math.min(current.getConfirmed(), local) : 0);
+                }
+                else {
+                    checksum = this.journaledPut(current, resume);
+                }
+                this.verifyAndComplete(current, checksum);
+            }
+            catch (SftpException e) {
+                if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                    showMessage("Dropping Transfer, Source is Gone: " + entry.getSource() + "\n");
+                    this.journal.complete(entry);
+                }
+                else {
+                    showMessage("Unable to Resume " + entry.getSource() + "\n");
+                }
+            }
+        }
+    }
+
 
+    /**
+     * Sets the file that in flight transfers are journaled to.
+     * @param fileName journal file location.
+     */
+    public void setJournalFile(String fileName) {
+        this.journal = new TransferJournal(fileName);
+    }
+
+
+    /**
+     * Gets the journal of in flight transfers.
+     * @return the journal.
+     */
+    public TransferJournal getJournal() {
+        return this.journal;
     }
 
 
@@ -312,7 +813,10 @@ public class CommandSFTP {
         if (!this.checkConnect()) {
             return;
         }
-        this.channel.cd(fileName);
+        this.metrics.time("cd", () -> this.retry(() -> {
+            this.channel.cd(fileName);
+            return null;
+        }));
     }
 
 
@@ -340,6 +844,33 @@ public class CommandSFTP {
     }
 
 
+    /**
+     * Sets whether or not to display full file information.
+     * @param fileDisplay true to show the long listing format
+     */
+    public void setFileDisplay(boolean fileDisplay) {
+        this.fileDisplay = fileDisplay;
+    }
+
+
+    /**
+     * Sets how listings, working directories, transfer results and messages are written.
+     * @param format HUMAN for text, JSON for one JSON object per line
+     */
+    public void setOutputFormat(CommandOutput.Format format) {
+        this.output.setFormat(format);
+    }
+
+
+    /**
+     * Gets the writer that every command's results go through.
+     * @return the command output
+     */
+    public CommandOutput getOutput() {
+        return this.output;
+    }
+
+
     /**
      * Lists the current remote working directory.
      */
@@ -347,7 +878,25 @@ public class CommandSFTP {
         if (!this.checkConnect()) {
             return;
         }
-        System.out.println(this.channel.pwd());
+        this.output.path("pwd", this.channel.pwd());
+    }
+
+
+    /**
+     * Gets the current remote working directory.
+     * @return absolute remote path
+     */
+    public String getRemoteDirectory() throws SftpException {
+        return this.channel.pwd();
+    }
+
+
+    /**
+     * Gets the current local working directory.
+     * @return absolute local path
+     */
+    public String getLocalDirectory() {
+        return this.channel.lpwd();
     }
 
 
@@ -377,29 +926,53 @@ public class CommandSFTP {
         if (!this.checkConnect()) {
             return;
         }
-        showMessage(this.channel.lpwd() + "\n");
+        this.output.path("lpwd", this.channel.lpwd());
     }
 
 
     /**
-     * Shows all files and directories in current local directory.
+     * Shows all files and directories in current local directory, in the listing order and page.
      */
     public void listCurrentLocalDirectoryFiles() throws IOException{
         if (!this.checkConnect()) {
             return;
         }
         Path directory = Paths.get(this.channel.lpwd());
-        DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*");
-        System.out.println();
-        for (Path path : stream) {
-            if (this.fileDisplay) {
-                System.out.println(path);
-            }
-            else {
-                System.out.println(path.getFileName());
+        boolean attributes = this.output.isJson()
+                || this.listingOrder == ListingSorter.Order.SIZE || this.listingOrder == ListingSorter.Order.MTIME;
+        this.output.startListing();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*");
+             ListingSorter sorter = this.newListingSorter(row -> this.output.line(row.getLine()))) {
+            for (Path path : stream) {
+                BasicFileAttributes attrs = null;
+                if (attributes) {
+                    attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                }
+                long size = attrs == null ? 0 : attrs.size();
+                long mtime = attrs == null ? 0 : attrs.lastModifiedTime().toMillis() / 1000;
+                String line = this.output.localEntry(path, attrs, this.fileDisplay);
+                if (!sorter.add(new ListingSorter.Row(path.getFileName().toString(), size, mtime, line))) {
+                    break;
+                }
             }
+            sorter.finish();
+        }
+        finally {
+            this.output.flush();
         }
-        stream.close();
+    }
+
+
+    /**
+     * Creates a sorter for the listing order and page that prints through a consumer.
+     * @param out receives the rows of the page
+     * @return the sorter
+     */
+    private ListingSorter newListingSorter(Consumer<ListingSorter.Row> out) {
+        ListingSorter sorter = new ListingSorter(this.listingOrder, this.listingDescending,
+                this.pageOffset, this.pageSize, out);
+        sorter.setMemoryRows(this.listingMemoryRows);
+        return sorter;
     }
 
 
@@ -411,87 +984,477 @@ public class CommandSFTP {
         if (!this.checkConnect()) {
             return;
         }
-        this.channel.get(fileName, fileName);
+        String source = this.remoteAbsolutePath(fileName);
+        String destination = this.localAbsolutePath(fileName);
+        SftpATTRS attrs = this.remoteStat(source);
+        if (this.transferWorkers > 1 && attrs.getSize() >= this.segmentThreshold) {
+            this.retry(() -> {
+                SegmentedTransfer transfer = new SegmentedTransfer(this.pool, this.transferWorkers);
+                transfer.setMetrics(this.metrics);
+                transfer.setBufferSize(this.throughputProfile.getBufferSize());
+                TransferResult result = transfer.download(source, destination);
+                this.metrics.recordTransfer(false, result);
+                if (!result.isSuccess()) {
+                    throw new SftpException(ChannelSftp.SSH_FX_FAILURE, result.getError());
+                }
+                return null;
+            });
+            return;
+        }
+        TransferJournal.Entry entry = new TransferJournal.Entry(TransferJournal.GET, this.getHostKey(),
+                source, destination, attrs.getSize(), attrs.getMTime(), 0);
+        this.journal.begin(entry);
+        this.verifyAndComplete(entry, this.journaledTransfer(entry));
     }
 
 
     /**
-     * Prompts user to receive remote file.
+     * Downloads a journaled file, continuing from an offset with ChannelSftp.RESUME.
+     * Anything past the offset in the local file is dropped first.
+     * @param entry journal entry of the transfer
+     * @param offset confirmed bytes to keep
+     * @return checksum of the whole file computed while downloading, null if checksums are off
      */
-    public void getRemoteFile() throws SftpException {
-        showMessage("File Name: ");
-        String userInput = sc.nextLine();
+    private String journaledGet(TransferJournal.Entry entry, long offset) throws SftpException {
+        return this.recordTransfer(false, () -> this.pool.execute(channel -> {
+            TransferChecksum checksum = this.newChecksum();
+            try (RandomAccessFile file = new RandomAccessFile(entry.getDestination(), "rw")) {
+                file.setLength(offset);
+                if (checksum != null && offset > 0) {
+                    checksum.update(new File(entry.getDestination()), offset);
+                }
+                try (OutputStream local = LocalFileIO.newOutputStream(file.getChannel(), offset)) {
+                    OutputStream out = checksum == null ? local : checksum.wrap(local);
+                    channel.get(entry.getSource(), out, this.metrics.monitor(false, this.journal.monitor(entry), offset),
+                            offset > 0 ? ChannelSftp.RESUME : ChannelSftp.OVERWRITE, offset);
+                }
+            }
+            catch (IOException e) {
+                this.journal.checkpoint();
+                throw new SftpException(ChannelSftp.SSH_FX_FAILURE, e.getMessage());
+            }
+            catch (SftpException e) {
+                this.journal.checkpoint();
+                throw e;
+            }
+            return checksum == null ? null : checksum.getValue();
+        }));
+    }
 
-        //Checks if file already exists and offers the user to overwrite.
-        if(overWriteLocalFile(userInput)) {
-            getRemoteFile(userInput);
+
+    /**
+     * Checks the checksum computed during a transfer against the server's and finishes the journal entry.
+     * On a mismatch the file is transferred again from the start, up to MAX_VERIFY_ATTEMPTS times in all.
+     * @param entry journal entry of the transfer
+     * @param checksum checksum computed during the transfer, null if checksums are off
+     * @throws SftpException If the checksums still differ after the last attempt.
+     */
+    private void verifyAndComplete(TransferJournal.Entry entry, String checksum) throws SftpException {
+        boolean get = entry.getDirection().equals(TransferJournal.GET);
+        String remotePath = get ? entry.getSource() : entry.getDestination();
+        for (int attempt = 1; !this.checksumMatches(remotePath, checksum); ++attempt) {
+            if (attempt == MAX_VERIFY_ATTEMPTS) {
+                this.journal.complete(entry);
+                throw new SftpException(ChannelSftp.SSH_FX_FAILURE, "Checksum Mismatch: " + remotePath);
+            }
+            showMessage("Checksum Mismatch, Transferring Again: " + remotePath + "\n");
+            checksum = get ? this.journaledGet(entry, 0) : this.journaledPut(entry, false);
+        }
+        if (checksum != null && this.checksumManifest) {
+            this.writeManifest(entry, checksum);
         }
+        this.journal.complete(entry);
     }
 
 
     /**
-     * Prompts user to retrieve multiple remote files.
+     * Compares a checksum with the one the server computes over an exec channel, if verifying is on.
+     * Servers that don't allow exec or can't run the command are not asked again until the next connect.
+     * @param remotePath absolute remote path
+     * @param checksum checksum computed during the transfer, null if checksums are off
+     * @return false if the server's checksum differs, true otherwise.
      */
-    public void getMultipleRemote() throws SftpException {
-        showMessage("Files (space separated): ");
-        String [] files = sc.nextLine().split(" ");
-        for (String s: files) {
-            getRemoteFile(s);
+    private boolean checksumMatches(String remotePath, String checksum) {
+        if (checksum == null || !this.verifyChecksums || !this.remoteChecksums
+                || this.checksumAlgorithm.getCommand() == null) {
+            return true;
+        }
+        try {
+            String remote = TransferChecksum.remote(this.session, this.checksumAlgorithm, remotePath, this.timeout);
+            return remote == null || remote.equals(checksum);
+        }
+        catch (JSchException e) {
+            this.remoteChecksums = false;
+            return true;
+        }
+        catch (IOException e) {
+            return true;
         }
     }
 
 
     /**
-     * Creates a new remote directory in the current remote working directory.
-     * @param dirName Name of new directory.
+     * Records a checksum in a sidecar manifest next to the destination, in sha256sum format.
+     * Downloads get a local manifest and uploads a remote one.
+     * @param entry journal entry of the transfer
+     * @param checksum checksum of the file
      */
-    public void createRemoteDir(String dirName) throws SftpException {
-        if (!this.checkConnect()) {
-            return;
+    private void writeManifest(TransferJournal.Entry entry, String checksum) throws SftpException {
+        String destination = entry.getDestination();
+        String name = destination.substring(destination.lastIndexOf('/') + 1);
+        byte[] line = TransferChecksum.manifestLine(checksum, name).getBytes(StandardCharsets.UTF_8);
+        String manifest = destination + this.checksumAlgorithm.getSuffix();
+        if (entry.getDirection().equals(TransferJournal.GET)) {
+            try {
+                Files.write(Paths.get(manifest), line);
+            }
+            catch (IOException e) {
+                throw new SftpException(ChannelSftp.SSH_FX_FAILURE, e.getMessage());
+            }
+        }
+        else {
+            this.pool.execute(channel -> {
+                channel.put(new ByteArrayInputStream(line), manifest);
+                return null;
+            });
+            this.listingCache.invalidateParent(manifest);
+            this.attributeCache.putExists(manifest, false);
         }
-        this.channel.mkdir(dirName);
     }
 
 
     /**
-     * Prompts user to create new remote directory.
+     * Starts a checksum for a transfer.
+     * @return an empty checksum, null if checksums are off
      */
-    public void createRemoteDir() throws SftpException {
-        showMessage("Directory to create: ");
-        createRemoteDir(sc.nextLine());
+    private TransferChecksum newChecksum() {
+        return this.checksumAlgorithm == null ? null : new TransferChecksum(this.checksumAlgorithm);
     }
 
 
     /**
-     * Attempts to delete a remote directory.
+     * Sets the checksum computed while files are transferred.
+     * @param algorithm checksum to compute, null to turn checksums off.
+     */
+    public void setChecksumAlgorithm(TransferChecksum.Algorithm algorithm) {
+        this.checksumAlgorithm = algorithm;
+    }
+
+
+    /**
+     * Sets whether each single file transfer is verified against a checksum the server computes.
+     * The server reads the whole file again for it, so verifying is off unless asked for.
+     * @param verifyChecksums true to compare with the server's checksum, false otherwise.
+     */
+    public void setVerifyChecksums(boolean verifyChecksums) {
+        this.verifyChecksums = verifyChecksums;
+    }
+
+
+    /**
+     * Sets whether checksums are recorded in a sidecar manifest next to each transferred file.
+     * @param checksumManifest true to write manifests, false otherwise.
+     */
+    public void setChecksumManifest(boolean checksumManifest) {
+        this.checksumManifest = checksumManifest;
+    }
+
+
+    /**
+     * Prompts user to receive remote file.
+     */
+    public void getRemoteFile() throws SftpException {
+        showMessage("File Name: ");
+        String userInput = sc.nextLine();
+
+        //Checks if file already exists and offers the user to overwrite.
+        if(overWriteLocalFile(userInput)) {
+            getRemoteFile(userInput);
+        }
+    }
+
+
+    /**
+     * Prompts user to retrieve multiple remote files.
+     */
+    public void getMultipleRemote() throws SftpException {
+        showMessage("Files or patterns such as *.log (space separated): ");
+        String [] files = sc.nextLine().split(" ");
+        TransferReport report = getMultipleRemote(files);
+        if (report == null) {
+            return;
+        }
+        this.output.report(report);
+    }
+
+
+    /**
+     * Retrieves multiple files from the current remote directory in parallel.
+     * Names may hold * and ? wildcards, in directory components as well as in the file name.
+     * Matches are downloaded as the directory listings arrive, keeping their path below the fixed part of the pattern.
+     * Plain names keep their relative path below the local directory, whether or not patterns are given with them.
+     * @param files Files or patterns to receive.
+     * @return the outcome of every file, null if not connected.
+     */
+    public TransferReport getMultipleRemote(String [] files) throws SftpException {
+        if (!this.checkConnect()) {
+            return null;
+        }
+        List<String> remoteFiles = new ArrayList<>();
+        List<String> localFiles = new ArrayList<>();
+        List<String> patterns = new ArrayList<>();
+        for (String s : files) {
+            if (s.isEmpty()) {
+                continue;
+            }
+            if (TransferEngine.isPattern(s)) {
+                patterns.add(this.remoteAbsolutePath(s));
+                continue;
+            }
+            remoteFiles.add(this.remoteAbsolutePath(s));
+            //Relative names keep their path, like a single get. Absolute ones land in the local directory.
+            localFiles.add(this.localAbsolutePath(s.startsWith("/") ? s.substring(s.lastIndexOf('/') + 1) : s));
+        }
+        TransferEngine engine = new TransferEngine(this.pool, this.transferWorkers);
+        engine.setMetrics(this.metrics);
+        engine.setBufferSize(this.throughputProfile.getBufferSize());
+        if (patterns.isEmpty()) {
+            return engine.downloadAll(remoteFiles, localFiles);
+        }
+        if (remoteFiles.isEmpty()) {
+            return engine.downloadMatching(patterns, this.channel.lpwd());
+        }
+        TransferReport report = engine.downloadAll(remoteFiles, localFiles);
+        report.addAll(engine.downloadMatching(patterns, this.channel.lpwd()));
+        report.finish();
+        return report;
+    }
+
+
+    /**
+     * Prompts user to upload a local directory.
+     */
+    public void uploadRemoteDirectory() throws SftpException {
+        showMessage("Local directory to upload: ");
+        TransferReport report = uploadRemoteDirectory(sc.nextLine());
+        if (report == null) {
+            return;
+        }
+        this.output.report(report);
+    }
+
+
+    /**
+     * Uploads a local directory and everything below it into the current remote directory in parallel.
+     * Symbolic links and unreadable entries are skipped and reported.
+     * @param dirName local directory to upload.
+     * @return the outcome of every file, null if not connected.
+     */
+    public TransferReport uploadRemoteDirectory(String dirName) throws SftpException {
+        if (!this.checkConnect()) {
+            return null;
+        }
+        File source = new File(this.localAbsolutePath(dirName));
+        if (!source.isDirectory()) {
+            throw new SftpException(ChannelSftp.SSH_FX_NO_SUCH_FILE, source + " is not a directory");
+        }
+        String destination = this.remoteAbsolutePath(source.getName());
+        TransferEngine engine = new TransferEngine(this.pool, this.transferWorkers);
+        engine.setMetrics(this.metrics);
+        engine.setBufferSize(this.throughputProfile.getBufferSize());
+        TransferReport report = engine.uploadTree(source.getPath(), destination, this.attributeCache);
+        this.listingCache.invalidateTree(destination);
+        //Keep the directories just created, but drop any stale file attributes below them.
+        for (TransferResult result : report.getResults()) {
+            this.attributeCache.invalidateTree(result.getDestination());
+        }
+        return report;
+    }
+
+
+    /**
+     * Prompts user to download a remote directory.
+     */
+    public void downloadRemoteDirectory() throws SftpException {
+        showMessage("Remote directory to download: ");
+        TransferReport report = downloadRemoteDirectory(sc.nextLine());
+        if (report == null) {
+            return;
+        }
+        this.output.report(report);
+    }
+
+
+    /**
+     * Downloads a remote directory and everything below it into the current local directory in parallel.
+     * Symbolic links are skipped and reported.
+     * @param dirName remote directory to download.
+     * @return the failures and totals of the download, null if not connected.
+     */
+    public TransferReport downloadRemoteDirectory(String dirName) throws SftpException {
+        if (!this.checkConnect()) {
+            return null;
+        }
+        String source = RemoteListingCache.normalize(this.remoteAbsolutePath(dirName));
+        if (!this.remoteLstat(source).isDir()) {
+            throw new SftpException(ChannelSftp.SSH_FX_FAILURE, source + " is not a directory");
+        }
+        String name = source.substring(source.lastIndexOf('/') + 1);
+        TransferEngine engine = new TransferEngine(this.pool, this.transferWorkers);
+        engine.setMetrics(this.metrics);
+        engine.setBufferSize(this.throughputProfile.getBufferSize());
+        return engine.downloadTree(source, this.localAbsolutePath(name.isEmpty() ? "root" : name));
+    }
+
+
+    /**
+     * Prompts user to sync the current local and remote directories.
+     */
+    public void syncDirectories() throws SftpException {
+        showMessage("Direction, (P)ush local to remote or pu(L)l remote to local: ");
+        String direction = sc.nextLine();
+        if (!direction.equalsIgnoreCase("p") && !direction.equalsIgnoreCase("l")) {
+            showMessage("Invalid Direction!\n");
+            return;
+        }
+        boolean push = direction.equalsIgnoreCase("p");
+        showMessage("Delete entries missing from the " + (push ? "local" : "remote") + " directory? (Y/N): ");
+        boolean delete = sc.nextLine().equalsIgnoreCase("y");
+        showMessage("Dry run? (Y/N): ");
+        boolean dryRun = sc.nextLine().equalsIgnoreCase("y");
+
+        DirectorySync.Plan plan = planSync(push, delete);
+        if (plan == null) {
+            return;
+        }
+        if (dryRun) {
+            for (DirectorySync.Action action : plan.getActions()) {
+                showMessage(action + "\n");
+            }
+            showMessage(plan + "\n");
+            return;
+        }
+        TransferReport report = syncDirectories(plan);
+        showMessage(plan + "\n");
+        this.output.report(report);
+    }
+
+
+    /**
+     * Works out what syncing the current local and remote directories would do, without changing anything.
+     * Files are compared by size and modification time.
+     * @param push true to update the remote directory from the local one, false for the reverse.
+     * @param delete true to also delete entries that only exist in the target.
+     * @return the planned actions, null if not connected.
+     */
+    public DirectorySync.Plan planSync(boolean push, boolean delete) throws SftpException {
+        if (!this.checkConnect()) {
+            return null;
+        }
+        DirectorySync sync = new DirectorySync(this.pool, this.transferWorkers);
+        try {
+            return sync.plan(this.channel.lpwd(), this.channel.pwd(), push, delete);
+        }
+        catch (IOException e) {
+            throw new SftpException(ChannelSftp.SSH_FX_FAILURE, e.toString());
+        }
+    }
+
+
+    /**
+     * Syncs the current local and remote directories, transferring only new or changed files in parallel.
+     * @param push true to update the remote directory from the local one, false for the reverse.
+     * @param delete true to also delete entries that only exist in the target.
+     * @return the outcome of every transfer and failed step, null if not connected.
+     */
+    public TransferReport syncDirectories(boolean push, boolean delete) throws SftpException {
+        DirectorySync.Plan plan = planSync(push, delete);
+        return plan == null ? null : syncDirectories(plan);
+    }
+
+
+    /**
+     * Carries out a sync plan.
+     * @param plan plan from planSync.
+     * @return the outcome of every transfer and failed step.
+     */
+    private TransferReport syncDirectories(DirectorySync.Plan plan) throws SftpException {
+        DirectorySync sync = new DirectorySync(this.pool, this.transferWorkers);
+        sync.setMetrics(this.metrics);
+        sync.setBufferSize(this.throughputProfile.getBufferSize());
+        TransferReport report = sync.apply(plan, this.attributeCache);
+        if (plan.isPush()) {
+            String pwd = this.channel.pwd();
+            this.listingCache.invalidateTree(pwd);
+            this.attributeCache.invalidateTree(pwd);
+        }
+        return report;
+    }
+
+
+    /**
+     * Creates a new remote directory in the current remote working directory.
+     * @param dirName Name of new directory.
+     */
+    public void createRemoteDir(String dirName) throws SftpException {
+        if (!this.checkConnect()) {
+            return;
+        }
+        String path = this.remoteAbsolutePath(dirName);
+        this.metrics.time("mkdir", () -> this.pool.execute(c -> {
+            c.mkdir(path);
+            return null;
+        }));
+        this.listingCache.invalidateParent(path);
+        this.attributeCache.putExists(path, true);
+    }
+
+
+    /**
+     * Prompts user to create new remote directory.
+     */
+    public void createRemoteDir() throws SftpException {
+        showMessage("Directory to create: ");
+        createRemoteDir(sc.nextLine());
+    }
+
+
+    /**
+     * Attempts to delete a remote directory.
      * @param fileName file to delete.
      */
     public void deleteRemoteDirectory(String fileName) throws SftpException {
+        RemoteTreeDeleter.Report report = this.deleteRemoteTree(fileName);
+        if (report != null && !report.isSuccess()) {
+            throw new SftpException(ChannelSftp.SSH_FX_FAILURE, report.getFailures().get(0));
+        }
+    }
+
+
+    /**
+     * Deletes a remote directory and everything below it in parallel, carrying on past entries that fail.
+     * @param fileName directory to delete.
+     * @return the removed entries and failures, null if not connected.
+     */
+    public RemoteTreeDeleter.Report deleteRemoteTree(String fileName) throws SftpException {
         if (!this.checkConnect()) {
-            return;
+            return null;
         }
         if (!fileName.startsWith("/")) {
             fileName = channel.pwd() + "/" + fileName;
         }
-        Vector<ChannelSftp.LsEntry> ls = channel.ls(fileName);
-        if (ls == null ) {
-            return;
+        //Never follow a link out of the tree being deleted.
+        if (!this.remoteLstat(fileName).isDir()) {
+            throw new SftpException(ChannelSftp.SSH_FX_FAILURE, fileName + " is not a directory");
         }
-        for (ChannelSftp.LsEntry item : ls) {
-            if (item != null) {
-                boolean isDir = item.getAttrs().isDir();
-                boolean isRootDir = item.getFilename().equals(".") || item.getFilename().equals("..");
-                String filePath = fileName + "/" + item.getFilename();
-                if (isDir) {
-                    if (!isRootDir) {
-                        this.deleteRemoteDirectory(filePath);
-                    }
-                } else {
-                    this.deleteRemoteFile(filePath);
-                }
-            }
+        RemoteTreeDeleter deleter = new RemoteTreeDeleter(this.pool, this.transferWorkers);
+        RemoteTreeDeleter.Report report = deleter.delete(fileName, progress -> showMessage(progress + "\n"));
+        this.listingCache.invalidateTree(fileName);
+        this.attributeCache.invalidateTree(fileName);
+        if (report.isSuccess()) {
+            this.attributeCache.putAbsent(fileName);
         }
-        this.channel.rmdir(fileName);
+        return report;
     }
 
 
@@ -500,7 +1463,14 @@ public class CommandSFTP {
      */
     public void deleteRemoteDirectory() throws SftpException {
         showMessage("Directory to delete: ");
-        deleteRemoteDirectory(sc.nextLine());
+        RemoteTreeDeleter.Report report = deleteRemoteTree(sc.nextLine());
+        if (report == null) {
+            return;
+        }
+        for (String failure : report.getFailures()) {
+            showMessage(failure + "\n");
+        }
+        showMessage(report + "\n");
     }
 
 
@@ -543,6 +1513,249 @@ public class CommandSFTP {
     }
 
 
+    /**
+     * Sets how many channels are used for parallel transfers.
+     * @param workers number of channels.
+     */
+    public void setTransferWorkers(int workers) {
+        this.transferWorkers = Math.max(1, Math.min(workers, TransferEngine.MAX_WORKERS));
+    }
+
+
+    /**
+     * Prompts user to set the number of parallel transfers.
+     */
+    public void setTransferWorkers() {
+        int userInput;
+        while(true) {
+            showMessage("Parallel Transfers (1-" + TransferEngine.MAX_WORKERS + "): ");
+            String userString = sc.nextLine();
+
+            try {
+                userInput = Integer.parseInt(userString);
+            }
+            catch (NumberFormatException e) {
+                showMessage("Positive Integers Only!\n");
+                continue;
+            }
+            if (userInput > 0) {
+                setTransferWorkers(userInput);
+                break;
+            }
+            else {
+                showMessage("Positive Integers Only!\n");
+            }
+        }
+    }
+
+
+    /**
+     * Sets whether the next connections pick their cipher order and compression.
+     * @param selectCiphers true to benchmark ciphers and sample data when connecting, false for JSch's defaults
+     */
+    public void setCipherSelection(boolean selectCiphers) {
+        this.selectCiphers = selectCiphers;
+    }
+
+
+    /**
+     * Prompts user to turn cipher and compression selection on or off.
+     */
+    public void setCipherSelection() {
+        showMessage("Select Ciphers and Compression When Connecting? (Y/N): ");
+        String userInput = sc.nextLine();
+        if (userInput.equalsIgnoreCase("y")) {
+            this.selectCiphers = true;
+        }
+        else if (userInput.equalsIgnoreCase("n")) {
+            this.selectCiphers = false;
+        }
+        showMessage("Takes Effect on the Next Connection\n");
+    }
+
+
+    /**
+     * Prompts user for the order and page of listings.
+     */
+    public void setListingOrder() {
+        showMessage("Sort Listings By (name/size/mtime/none): ");
+        String order = sc.nextLine().trim();
+        showMessage("Descending? (Y/N): ");
+        boolean descending = sc.nextLine().equalsIgnoreCase("y");
+        try {
+            this.setListingOrder(order.equalsIgnoreCase("none") ? null
+                    : ListingSorter.Order.valueOf(order.toUpperCase()), descending);
+            showMessage("Entries Per Page (0 for all): ");
+            long size = Long.parseLong(sc.nextLine().trim());
+            showMessage("Entries to Skip: ");
+            this.setListingPage(Long.parseLong(sc.nextLine().trim()), size);
+        }
+        catch (IllegalArgumentException e) {
+            showMessage("Invalid Listing Option\n");
+        }
+    }
+
+
+    /**
+     * Sets the order listings are printed in.
+     * @param order order to sort by, null for the server's or file system's own order
+     * @param descending true to reverse the order
+     */
+    public void setListingOrder(ListingSorter.Order order, boolean descending) {
+        this.listingOrder = order;
+        this.listingDescending = descending;
+    }
+
+
+    /**
+     * Sets which page of a listing is printed.
+     * @param offset entries to skip
+     * @param size entries to print, 0 for all of them
+     */
+    public void setListingPage(long offset, long size) {
+        this.pageOffset = Math.max(0, offset);
+        this.pageSize = Math.max(0, size);
+    }
+
+
+    /**
+     * Sets how many entries a sorted listing holds in memory before spilling sorted runs to disk.
+     * @param rows memory budget in entries
+     */
+    public void setListingMemoryRows(int rows) {
+        this.listingMemoryRows = rows;
+    }
+
+
+    /**
+     * Sets the file or directory sampled to decide on compression.
+     * @param path local file or directory, null for the local working directory
+     */
+    public void setCompressionSample(String path) {
+        this.compressionSample = path;
+    }
+
+
+    /**
+     * Measures the link and sizes the transfer requests and buffers for it.
+     * Measuring uploads a probe file into the remote working directory, so it only happens when asked for.
+     * Later connections measure again until a manual profile is set; reconnects keep the measured profile.
+     * @return the measured profile, null if not connected.
+     * @throws SftpException If the link can't be measured.
+     */
+    public ThroughputProfile tuneThroughput() throws SftpException {
+        if (!this.checkConnect()) {
+            return null;
+        }
+        this.autoTune = true;
+        ThroughputProfile profile = ThroughputProfile.measure(this.pool, this.channel.pwd());
+        this.applyThroughputProfile(profile);
+        return profile;
+    }
+
+
+    /**
+     * Measures the link after connecting, keeping the current profile if that fails.
+     */
+    private void autoTuneThroughput() {
+        try {
+            this.tuneThroughput();
+        }
+        catch (SftpException e) {
+            showMessage("Unable to Measure Throughput, Keeping Current Profile\n");
+            this.applyThroughputProfile(this.throughputProfile);
+        }
+    }
+
+
+    /**
+     * Sets the transfer requests and buffers by hand, which turns off measuring on connect.
+     * @param profile profile to use
+     */
+    public void setThroughputProfile(ThroughputProfile profile) {
+        this.autoTune = false;
+        if (this.checkConnect) {
+            this.applyThroughputProfile(profile);
+        }
+        else {
+            this.throughputProfile = profile;
+        }
+    }
+
+
+    /**
+     * Prompts user to measure the link or set the transfer requests and buffers by hand.
+     */
+    public void setThroughputProfile() throws SftpException {
+        showMessage("Current Profile: " + this.throughputProfile + "\n");
+        showMessage("(A)uto or (M)anual: ");
+        String userInput = sc.nextLine();
+        if (userInput.equalsIgnoreCase("a")) {
+            this.tuneThroughput();
+            return;
+        }
+        if (!userInput.equalsIgnoreCase("m")) {
+            return;
+        }
+        while (true) {
+            try {
+                showMessage("Outstanding Requests (1-" + ThroughputProfile.MAX_BULK_REQUESTS + "): ");
+                int bulkRequests = Integer.parseInt(sc.nextLine());
+                showMessage("Buffer Size in KB (" + ThroughputProfile.PACKET_SIZE / 1024 + "-"
+                        + ThroughputProfile.MAX_BUFFER_SIZE / 1024 + "): ");
+                int bufferSize = Integer.parseInt(sc.nextLine()) * 1024;
+                setThroughputProfile(new ThroughputProfile(bulkRequests, bufferSize));
+                return;
+            }
+            catch (NumberFormatException e) {
+                showMessage("Positive Integers Only!\n");
+            }
+            catch (IllegalArgumentException e) {
+                showMessage(e.getMessage() + "\n");
+            }
+        }
+    }
+
+
+    /**
+     * Gets the profile transfers run with.
+     * @return the current profile
+     */
+    public ThroughputProfile getThroughputProfile() {
+        return this.throughputProfile;
+    }
+
+
+    /**
+     * Hands a profile to the channel pool and logs it, so runs can be compared.
+     * @param profile profile to use
+     */
+    private void applyThroughputProfile(ThroughputProfile profile) {
+        this.throughputProfile = profile;
+        this.pool.setBulkRequests(profile.getBulkRequests());
+        this.metrics.setThroughputProfile(profile);
+        showMessage("Throughput Profile: " + profile + "\n");
+    }
+
+
+    /**
+     * Sets the file size at which transfers are split into parallel segments.
+     * @param threshold size in bytes.
+     */
+    public void setSegmentThreshold(long threshold) {
+        this.segmentThreshold = threshold;
+    }
+
+
+    /**
+     * Gets the number of channels used for parallel transfers.
+     * @return the number of channels.
+     */
+    public int getTransferWorkers() {
+        return this.transferWorkers;
+    }
+
+
     /**
      * Gets the current timeout.
      * @return the current timeout. -1 if unable to retrieve.
@@ -585,26 +1798,195 @@ public class CommandSFTP {
 
 
     /**
-     * Lists files on the remote working directory.
+     * Lists files on the remote working directory in the listing order and page.
+     * Without an order each entry is printed as it is read, and the listing stops once the page is full.
      */
     public void listCurrentRemoteFiles() throws SftpException {
         if (!this.checkConnect()) {
             return;
         }
-        Vector ls = channel.ls(channel.pwd());
-        if (ls == null) {
-            return;
+        this.output.startListing();
+        try (ListingSorter sorter = this.newListingSorter(row -> this.output.line(row.getLine()))) {
+            this.listRemote(this.channel.pwd(), entry -> {
+                SftpATTRS attrs = entry.getAttrs();
+                return sorter.add(new ListingSorter.Row(entry.getFilename(), attrs.getSize(), attrs.getMTime(),
+                        this.output.remoteEntry(entry, this.fileDisplay)));
+            });
+            sorter.finish();
         }
-        System.out.println();
-        for (Object s : ls) {
-            if (s instanceof  ChannelSftp.LsEntry) {
-                if (this.fileDisplay) {
-                    System.out.println(((ChannelSftp.LsEntry)s).getLongname());
-                } else {
-                    System.out.println(((ChannelSftp.LsEntry)s).getFilename());
-                }
+        catch (IOException e) {
+            throw new SftpException(ChannelSftp.SSH_FX_FAILURE, e.getMessage());
+        }
+        finally {
+            this.output.flush();
+        }
+    }
+
+
+    /**
+     * Streams a remote directory listing to a visitor on a pooled channel, from the listing cache when possible.
+     * Entries are handed over as they are read, so the whole directory is never held in memory.
+     * A lost connection is restored and the listing run again, as long as the visitor hasn't seen any entry.
+     * Only the server listing is timed as "ls", not cache hits or the visitor.
+     * @param path absolute or relative remote directory
+     * @param visitor receives the entries, including "." and "..", and returns false to stop the listing
+     * @return true if every entry was visited, false if the visitor stopped or not connected
+     */
+    public boolean listRemote(String path, RemoteLister.Visitor visitor) throws SftpException {
+        if (!this.checkConnect()) {
+            return false;
+        }
+        String directory = this.remoteAbsolutePath(path);
+        boolean[] visited = {false};
+        RemoteLister.Visitor counting = entry -> {
+            visited[0] = true;
+            return visitor.visit(entry);
+        };
+        try {
+            return this.newLister().list(directory, true, counting);
+        }
+        catch (SftpException e) {
+            if (visited[0] || !this.recover(e)) {
+                throw e;
+            }
+            return this.newLister().list(directory, true, counting);
+        }
+    }
+
+
+    /**
+     * Creates a lister on the current pool and caches that times server listings into the metrics.
+     * @return the lister
+     */
+    private RemoteLister newLister() {
+        RemoteLister lister = new RemoteLister(this.pool, this.listingCache, this.attributeCache);
+        lister.setMetrics(this.metrics);
+        return lister;
+    }
+
+
+    /**
+     * Sets how long remote listings are cached.
+     * @param ttlMillis time to live in milliseconds, 0 to always list the server.
+     */
+    public void setListingCacheTtl(long ttlMillis) {
+        this.listingCache.setTtl(ttlMillis);
+    }
+
+
+    /**
+     * Reads the attributes of a remote file on a pooled channel.
+     * @param path absolute remote path
+     * @return the file attributes
+     */
+    private SftpATTRS remoteStat(String path) throws SftpException {
+        SftpATTRS attrs = this.attributeCache.get(path);
+        if (attrs != null) {
+            return attrs;
+        }
+        if (Boolean.FALSE.equals(this.attributeCache.exists(path))) {
+            throw new SftpException(ChannelSftp.SSH_FX_NO_SUCH_FILE, "No such file");
+        }
+        try {
+            attrs = this.retry(() -> this.pool.execute(c -> c.stat(path)));
+        }
+        catch (SftpException e) {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                this.attributeCache.putAbsent(path);
             }
+            throw e;
+        }
+        this.attributeCache.put(path, attrs);
+        return attrs;
+    }
+
+
+    /**
+     * Reads the attributes of a remote path without following a final symbolic link.
+     * The server is always asked, since the cache also holds stat results, which follow links and would
+     * make a link to a directory look like the directory itself. Only non-link results are cached.
+     * @param path absolute remote path
+     * @return the path's own attributes
+     */
+    private SftpATTRS remoteLstat(String path) throws SftpException {
+        SftpATTRS attrs = this.retry(() -> this.pool.execute(c -> c.lstat(path)));
+        if (!attrs.isLink()) {
+            this.attributeCache.put(path, attrs);
+        }
+        return attrs;
+    }
+
+
+    /**
+     * Sets how long remote attributes are trusted before the server is asked again.
+     * @param maxAgeMillis staleness bound in milliseconds, 0 to always ask the server.
+     */
+    public void setAttributeCacheMaxAge(long maxAgeMillis) {
+        this.attributeCache.setMaxAge(maxAgeMillis);
+    }
+
+
+    /**
+     * Gets the pool that listing, stat and transfer calls borrow channels from.
+     * @return the channel pool, null if not connected.
+     */
+    public ChannelPool getChannelPool() {
+        return this.pool;
+    }
+
+
+    /**
+     * Gets the transfer counters and operation latencies of this connection, also published through JMX.
+     * @return the metrics
+     */
+    public TransferMetrics getMetrics() {
+        return this.metrics;
+    }
+
+
+    /**
+     * Appends the metrics to a text file at a fixed rate.
+     * @param fileName file to append to
+     * @param periodMillis time between dumps, 0 to stop dumping
+     */
+    public void setMetricsDump(String fileName, long periodMillis) {
+        this.metrics.setDump(fileName, periodMillis);
+    }
+
+
+    /**
+     * Resolves a remote path against the current remote working directory.
+     * @param path absolute or relative remote path
+     * @return the absolute remote path
+     */
+    private String remoteAbsolutePath(String path) throws SftpException {
+        if (path.startsWith("/")) {
+            return path;
+        }
+        String pwd = this.channel.pwd();
+        return pwd.endsWith("/") ? pwd + path : pwd + "/" + path;
+    }
+
+
+    /**
+     * Resolves a local path against the current local working directory.
+     * @param path absolute or relative local path
+     * @return the absolute local path
+     */
+    private String localAbsolutePath(String path) {
+        if (path.startsWith("/")) {
+            return path;
         }
+        return this.channel.lpwd() + "/" + path;
+    }
+
+
+    /**
+     * Identifies the connection the way the journal and session keys do.
+     * @return user@host:port
+     */
+    public String getHostKey() {
+        return (this.user == null ? "" : this.user.getUserName()) + "@" + this.hostIP + ":" + this.portNumber;
     }
 
 
@@ -616,14 +1998,26 @@ public class CommandSFTP {
      * @throws IOException When unable to create known host file.
      */
     public void setKnownHostsFile(String fileName) throws JSchException, IOException{
+        fileName = prepareKnownHostsFile(fileName);
+        this.jsch.setKnownHosts(fileName);
+        this.knownHostsFile = fileName;
+    }
+
+
+    /**
+     * Resolves a known hosts file name and creates the file if it doesn't exist.
+     * Uses user.home/.ssh/sftp_hosts if no file is specified.
+     * @param fileName file to prepare.
+     * @return the resolved file name.
+     * @throws IOException When unable to create known host file.
+     */
+    static String prepareKnownHostsFile(String fileName) throws IOException {
         if (fileName.equals("")) {
             String userHome = System.getProperty( "user.home" );
             if (! new File(userHome + ".ssh").isDirectory()) {
                 new File(userHome +"/.ssh").mkdir();
             }
-            this.knownHostsFile = userHome + "/.ssh/sftp_hosts";
-
-            fileName = this.knownHostsFile;
+            fileName = userHome + "/.ssh/sftp_hosts";
         }
         else if (fileName.startsWith("~/")) {
             fileName = System.getProperty("user.home") + fileName.subSequence(1, fileName.length() );
@@ -638,9 +2032,7 @@ public class CommandSFTP {
             }
             file.createNewFile();
         }
-
-        this.jsch.setKnownHosts(fileName);
-        this.knownHostsFile = fileName;
+        return fileName;
     }
 
 
@@ -659,17 +2051,22 @@ public class CommandSFTP {
 
 
     /**
-     * Attempts to quit the server the connection.
+     * Attempts to quit the server the connection. The password kept for reconnecting is cleared.
      * @return true on success, false otherwise.
      */
     public boolean quit() {
+        this.clearPassword();
         if (this.checkConnect) {
             this.checkConnect = false;
+            this.metrics.unregister();
             if (this.session != null) {
-                if (this.channel != null) {
-                    this.channel.quit();
+                if (this.pool != null && this.sessionManager == null) {
+                    this.pool.close();
+                }
+                this.channelDisconnect();
+                if (this.sessionManager == null) {
+                    this.session.disconnect();
                 }
-                this.session.disconnect();
                 showMessage("Server Disconnected! \n");
                 return true;
             }
@@ -683,6 +2080,6 @@ public class CommandSFTP {
      * @param s Message to display.
      */
     public void showMessage(String s) {
-        System.out.print(s);
+        this.output.message(s);
     }
 }
@@ -0,0 +1,517 @@
+package com.company;
+
+import com.jcraft.jsch.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * Brings a target directory tree up to date with a source tree, local to remote or remote to local.
+ * Files are compared by size and modification time, and only new or changed files are transferred.
+ * Copies get the modification time of their source, so an unchanged file is skipped on the next sync.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class DirectorySync {
+    public enum Kind { UPLOAD, DOWNLOAD, MKDIR, DELETE, SKIP }
+
+    private final ChannelPool pool;
+    private final int workers;
+    private TransferMetrics metrics = null;
+    private int bufferSize = ThroughputProfile.DEFAULT_BUFFER_SIZE;
+
+
+    /**
+     * One step of a sync.
+     */
+    public static class Action {
+        private final Kind kind;
+        private final String path;
+        private final long size;
+        private final long mtime;
+        private final boolean dir;
+        private final String reason;
+
+        private Action(Kind kind, String path, Entry entry, String reason) {
+            this.kind = kind;
+            this.path = path;
+            this.size = entry.dir ? 0 : entry.size;
+            this.mtime = entry.mtime;
+            this.dir = entry.dir;
+            this.reason = reason;
+        }
+
+
+        public Kind getKind() {
+            return kind;
+        }
+
+
+        /**
+         * Gets the path the action applies to.
+         * @return path relative to the synced directories
+         */
+        public String getPath() {
+            return path;
+        }
+
+
+        public long getSize() {
+            return size;
+        }
+
+
+        public boolean isDirectory() {
+            return dir;
+        }
+
+
+        @Override
+        public String toString() {
+            String s = String.format("%-8s %s%s", kind, path, dir ? "/" : "");
+            if (reason != null) {
+                return s + " (" + reason + ")";
+            }
+            return dir ? s : s + " (" + size + " bytes)";
+        }
+    }
+
+
+    /**
+     * The actions that bring a target up to date, worked out before anything changes.
+     */
+    public static class Plan {
+        private final String localRoot;
+        private final String remoteRoot;
+        private final boolean push;
+        private final List<Action> actions = new ArrayList<>();
+
+
+        private Plan(String localRoot, String remoteRoot, boolean push) {
+            this.localRoot = localRoot;
+            this.remoteRoot = remoteRoot;
+            this.push = push;
+        }
+
+
+        /**
+         * Gets every planned action: directories to create, then files to transfer, then entries to delete.
+         * @return a copy of the actions
+         */
+        public List<Action> getActions() {
+            return new ArrayList<>(actions);
+        }
+
+
+        /**
+         * Determines whether local changes are sent to the server.
+         * @return true for local to remote, false for remote to local.
+         */
+        public boolean isPush() {
+            return push;
+        }
+
+
+        /**
+         * Counts the actions of one kind.
+         * @param kind kind of action
+         * @return number of planned actions of that kind
+         */
+        public int count(Kind kind) {
+            int count = 0;
+            for (Action action : actions) {
+                if (action.kind == kind) {
+                    ++count;
+                }
+            }
+            return count;
+        }
+
+
+        /**
+         * Adds up the file sizes of the actions of one kind.
+         * @param kind kind of action
+         * @return total bytes
+         */
+        public long bytes(Kind kind) {
+            long bytes = 0;
+            for (Action action : actions) {
+                if (action.kind == kind) {
+                    bytes += action.size;
+                }
+            }
+            return bytes;
+        }
+
+
+        /**
+         * Determines whether the target is already up to date.
+         * @return true if there is nothing to transfer, create or delete, false otherwise.
+         */
+        public boolean isEmpty() {
+            return actions.size() == count(Kind.SKIP);
+        }
+
+
+        @Override
+        public String toString() {
+            Kind transfer = push ? Kind.UPLOAD : Kind.DOWNLOAD;
+            return String.format("%d Files to %s (%d bytes), %d Directories to Create, %d Entries to Delete (%d bytes), %d Skipped",
+                    count(transfer), push ? "Upload" : "Download", bytes(transfer), count(Kind.MKDIR),
+                    count(Kind.DELETE), bytes(Kind.DELETE), count(Kind.SKIP));
+        }
+    }
+
+
+    /**
+     * Size, modification time and type of one entry of a walked tree.
+     */
+    private static class Entry {
+        private final long size;
+        private final long mtime;
+        private final boolean dir;
+        private final boolean link;
+
+        private Entry(long size, long mtime, boolean dir, boolean link) {
+            this.size = size;
+            this.mtime = mtime;
+            this.dir = dir;
+            this.link = link;
+        }
+    }
+
+
+    /**
+     * Constructor that sets the channel pool and the number of concurrent transfers.
+     * @param pool pool to lease channels from
+     * @param workers number of files transferred at once
+     */
+    public DirectorySync(ChannelPool pool, int workers) {
+        this.pool = pool;
+        this.workers = workers;
+    }
+
+
+    /**
+     * Counts the bytes and files moved in transfer metrics.
+     * @param metrics metrics to update, null to stop counting
+     */
+    public void setMetrics(TransferMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+
+    /**
+     * Sets how many bytes each download reads from its channel at once.
+     * @param bufferSize buffer size in bytes
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+
+    /**
+     * Works out what a sync would do without changing anything.
+     * @param localRoot local directory
+     * @param remoteRoot absolute remote directory
+     * @param push true to update the remote directory from the local one, false for the reverse
+     * @param delete true to also delete entries that only exist in the target
+     * @return the planned actions
+     * @throws SftpException If the remote directory can't be listed.
+     * @throws IOException If the local directory can't be walked.
+     */
+    public Plan plan(String localRoot, String remoteRoot, boolean push, boolean delete) throws SftpException, IOException {
+        SortedMap<String, Entry> local = walkLocal(Paths.get(localRoot));
+        SortedMap<String, Entry> remote = walkRemote(remoteRoot);
+        SortedMap<String, Entry> source = push ? local : remote;
+        SortedMap<String, Entry> target = push ? remote : local;
+        Plan plan = new Plan(localRoot, remoteRoot, push);
+
+        List<Action> transfers = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (Map.Entry<String, Entry> item : source.entrySet()) {
+            String path = item.getKey();
+            Entry s = item.getValue();
+            Entry t = target.get(path);
+            if (isBelow(path, skipped)) {
+                continue;
+            }
+            //Nothing below a skipped entry is transferred or deleted, since the two sides don't match there.
+            if (s.link || (t != null && t.link)) {
+                plan.actions.add(new Action(Kind.SKIP, path, s, "Symbolic Link"));
+                skipped.add(path + "/");
+            }
+            else if (t != null && t.dir != s.dir) {
+                plan.actions.add(new Action(Kind.SKIP, path, s, "Type Mismatch"));
+                skipped.add(path + "/");
+            }
+            else if (s.dir) {
+                if (t == null) {
+                    plan.actions.add(new Action(Kind.MKDIR, path, s, null));
+                }
+            }
+            else if (t == null || t.size != s.size || t.mtime != s.mtime) {
+                transfers.add(new Action(push ? Kind.UPLOAD : Kind.DOWNLOAD, path, s, null));
+            }
+        }
+        plan.actions.addAll(transfers);
+
+        if (delete) {
+            //Reverse order puts children before the directories that hold them.
+            List<String> paths = new ArrayList<>(target.keySet());
+            Collections.reverse(paths);
+            for (String path : paths) {
+                if (!source.containsKey(path) && !isBelow(path, skipped)) {
+                    plan.actions.add(new Action(Kind.DELETE, path, target.get(path), null));
+                }
+            }
+        }
+        return plan;
+    }
+
+
+    /**
+     * Carries out a plan. Directories are created first, files are transferred concurrently and
+     * extraneous entries are deleted last. Skipped entries and failed steps are recorded as failures.
+     * @param plan plan from plan()
+     * @param attributeCache cache of known remote paths, may be null
+     * @return the outcome of every transfer and every failed step
+     */
+    public TransferReport apply(Plan plan, RemoteAttributeCache attributeCache) {
+        TransferEngine engine = new TransferEngine(this.pool, this.workers);
+        engine.setMetrics(this.metrics);
+        engine.setBufferSize(this.bufferSize);
+        List<String> directories = new ArrayList<>();
+        List<TransferEngine.Job> jobs = new ArrayList<>();
+        List<Action> deletes = new ArrayList<>();
+        List<TransferResult> failures = new ArrayList<>();
+
+        for (Action action : plan.actions) {
+            String local = localPath(plan.localRoot, action.path);
+            String remote = remotePath(plan.remoteRoot, action.path);
+            switch (action.kind) {
+                case MKDIR:
+                    if (plan.push) {
+                        directories.add(remote);
+                    }
+                    else if (!new File(local).mkdirs()) {
+                        failures.add(TransferResult.failure(remote, local, "Unable to Create Directory"));
+                    }
+                    break;
+                case UPLOAD:
+                    jobs.add(new TransferEngine.Job(local, remote, true, action.size, action.mtime));
+                    break;
+                case DOWNLOAD:
+                    jobs.add(new TransferEngine.Job(remote, local, false, action.size, action.mtime));
+                    break;
+                case DELETE:
+                    deletes.add(action);
+                    break;
+                case SKIP:
+                    failures.add(plan.push ? TransferResult.failure(local, remote, "Skipped " + action.reason)
+                            : TransferResult.failure(remote, local, "Skipped " + action.reason));
+                    break;
+            }
+        }
+
+        if (!directories.isEmpty()) {
+            TransferReport made = new TransferReport();
+            engine.makeDirectories(directories, attributeCache, made);
+            failures.addAll(made.getFailures());
+        }
+        TransferReport report = engine.transferAll(jobs);
+        for (TransferResult failure : failures) {
+            report.add(failure);
+        }
+        if (plan.push) {
+            deleteRemote(plan, deletes, report);
+        }
+        else {
+            deleteLocal(plan, deletes, report);
+        }
+        report.finish();
+        return report;
+    }
+
+
+    /**
+     * Deletes remote entries over one leased channel, in plan order.
+     * @param plan plan the entries belong to
+     * @param deletes entries to delete, children before parents
+     * @param report where to record failures
+     */
+    private void deleteRemote(Plan plan, List<Action> deletes, TransferReport report) {
+        if (deletes.isEmpty()) {
+            return;
+        }
+        try {
+            this.pool.execute(channel -> {
+                for (Action action : deletes) {
+                    String remote = remotePath(plan.remoteRoot, action.path);
+                    try {
+                        if (action.dir) {
+                            channel.rmdir(remote);
+                        }
+                        else {
+                            channel.rm(remote);
+                        }
+                    }
+                    catch (SftpException e) {
+                        report.add(TransferResult.failure(remote, remote, e.getMessage()));
+                    }
+                }
+                return null;
+            });
+        }
+        catch (SftpException e) {
+            report.add(TransferResult.failure(plan.remoteRoot, plan.remoteRoot, e.getMessage()));
+        }
+    }
+
+
+    /**
+     * Deletes local entries in plan order.
+     * @param plan plan the entries belong to
+     * @param deletes entries to delete, children before parents
+     * @param report where to record failures
+     */
+    private void deleteLocal(Plan plan, List<Action> deletes, TransferReport report) {
+        for (Action action : deletes) {
+            String local = localPath(plan.localRoot, action.path);
+            try {
+                Files.delete(Paths.get(local));
+            }
+            catch (IOException e) {
+                report.add(TransferResult.failure(local, local, e.toString()));
+            }
+        }
+    }
+
+
+    /**
+     * Collects every entry below a local directory without following links.
+     * @param root local directory
+     * @return entries keyed by relative path, parents before children
+     */
+    private static SortedMap<String, Entry> walkLocal(Path root) throws IOException {
+        SortedMap<String, Entry> entries = new TreeMap<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root)) {
+                    entries.put(relative(root, dir), new Entry(0, attrs.lastModifiedTime().toMillis() / 1000, true, false));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                entries.put(relative(root, file), new Entry(attrs.size(), attrs.lastModifiedTime().toMillis() / 1000,
+                        false, attrs.isSymbolicLink()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                //Unreadable entries are left out of the plan.
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return entries;
+    }
+
+
+    /**
+     * Collects every entry below a remote directory without following links.
+     * @param root absolute remote directory
+     * @return entries keyed by relative path, parents before children
+     */
+    private SortedMap<String, Entry> walkRemote(String root) throws SftpException {
+        SortedMap<String, Entry> entries = new TreeMap<>();
+        this.pool.execute(channel -> {
+            Deque<String> directories = new ArrayDeque<>();
+            directories.add("");
+            while (!directories.isEmpty()) {
+                String directory = directories.poll();
+                try {
+                    RemoteLister.list(channel, remotePath(root, directory), item -> {
+                        String name = item.getFilename();
+                        if (name.equals(".") || name.equals("..")) {
+                            return true;
+                        }
+                        String path = directory.isEmpty() ? name : directory + "/" + name;
+                        SftpATTRS attrs = item.getAttrs();
+                        entries.put(path, new Entry(attrs.getSize(), attrs.getMTime(), attrs.isDir(), attrs.isLink()));
+                        if (attrs.isDir()) {
+                            directories.add(path);
+                        }
+                        return true;
+                    });
+                }
+                catch (SftpException e) {
+                    if (directory.isEmpty() && e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                        return null;
+                    }
+                    throw e;
+                }
+            }
+            return null;
+        });
+        return entries;
+    }
+
+
+    /**
+     * Determines whether a path lies below one of several directories.
+     * @param path relative path
+     * @param prefixes relative directories, each ending in a slash
+     * @return true if the path is below one of them, false otherwise.
+     */
+    private static boolean isBelow(String path, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Gets the relative path of a local entry with forward slashes.
+     * @param root walked directory
+     * @param path entry below it
+     * @return the relative path
+     */
+    private static String relative(Path root, Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+
+    /**
+     * Resolves a relative path against a local directory.
+     * @param root local directory
+     * @param path relative path, "" for the directory itself
+     * @return the local path
+     */
+    private static String localPath(String root, String path) {
+        return path.isEmpty() ? root : root + File.separator + path.replace('/', File.separatorChar);
+    }
+
+
+    /**
+     * Resolves a relative path against a remote directory.
+     * @param root absolute remote directory
+     * @param path relative path, "" for the directory itself
+     * @return the absolute remote path
+     */
+    private static String remotePath(String root, String path) {
+        if (path.isEmpty()) {
+            return root;
+        }
+        return root.endsWith("/") ? root + path : root + "/" + path;
+    }
+}
@@ -0,0 +1,320 @@
+package com.company;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Orders a directory listing and cuts one page out of it, whatever the size of the directory.
+ * A page that fits the memory budget is picked with a bounded heap, so only offset + limit rows are kept
+ * and nothing else is sorted. Longer pages spill sorted runs of the budget's size to disk and merge them.
+ * Without an order, rows are passed straight through and the listing is stopped once the page is full.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class ListingSorter implements Closeable {
+    public final static int DEFAULT_MEMORY_ROWS = 100000;
+
+    public enum Order { NAME, SIZE, MTIME }
+
+    private final Comparator<Row> comparator;
+    private final long offset;
+    private final long limit;
+    private final Consumer<Row> out;
+    private int memoryRows = DEFAULT_MEMORY_ROWS;
+    private PriorityQueue<Row> heap = null;
+    private List<Row> buffer = null;
+    private final List<File> runs = new ArrayList<>();
+    private IOException error = null;
+    private long seen = 0;
+
+
+    /**
+     * One listing entry.
+     */
+    public static class Row {
+        private final String name;
+        private final long size;
+        private final long mtime;
+        private final String line;
+
+        /**
+         * @param name file name, the tie breaker for every order
+         * @param size size in bytes
+         * @param mtime modification time in seconds
+         * @param line text to print for the entry
+         */
+        public Row(String name, long size, long mtime, String line) {
+            this.name = name;
+            this.size = size;
+            this.mtime = mtime;
+            this.line = line;
+        }
+
+        /**
+         * @return the file name
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return size in bytes
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * @return modification time in seconds
+         */
+        public long getMtime() {
+            return this.mtime;
+        }
+
+        /**
+         * @return text to print for the entry
+         */
+        public String getLine() {
+            return this.line;
+        }
+    }
+
+
+    /**
+     * Constructor that sets the order and the page.
+     * @param order order to sort by, null to keep the listing's own order
+     * @param descending true to reverse the order
+     * @param offset rows to skip
+     * @param limit most rows to hand out, 0 for all of them
+     * @param out receives the rows of the page in order
+     */
+    public ListingSorter(Order order, boolean descending, long offset, long limit, Consumer<Row> out) {
+        this.comparator = order == null ? null : comparator(order, descending);
+        this.offset = Math.max(0, offset);
+        this.limit = limit <= 0 ? Long.MAX_VALUE : limit;
+        this.out = out;
+    }
+
+
+    /**
+     * Sets how many rows may be held in memory before sorted runs are spilled to disk. Call before adding rows.
+     * @param memoryRows memory budget in rows
+     */
+    public void setMemoryRows(int memoryRows) {
+        this.memoryRows = Math.max(1, memoryRows);
+    }
+
+
+    /**
+     * Builds the comparator for an order. Names break ties, so equal sizes or times list alphabetically.
+     * @param order order to sort by
+     * @param descending true to reverse it
+     * @return the comparator
+     */
+    static Comparator<Row> comparator(Order order, boolean descending) {
+        Comparator<Row> byName = Comparator.comparing(Row::getName);
+        Comparator<Row> comparator;
+        switch (order) {
+            case SIZE:
+                comparator = Comparator.comparingLong(Row::getSize).thenComparing(byName);
+                break;
+            case MTIME:
+                comparator = Comparator.comparingLong(Row::getMtime).thenComparing(byName);
+                break;
+            default:
+                comparator = byName;
+        }
+        return descending ? comparator.reversed() : comparator;
+    }
+
+
+    /**
+     * Takes the next row of the listing.
+     * @param row the row
+     * @return false once no more rows are needed, or after spilling to disk failed
+     */
+    public boolean add(Row row) {
+        ++this.seen;
+        if (this.comparator == null) {
+            if (this.seen > this.offset) {
+                this.out.accept(row);
+            }
+            return this.seen - this.offset < this.limit;
+        }
+        if (this.error != null) {
+            return false;
+        }
+        long wanted = this.limit == Long.MAX_VALUE ? Long.MAX_VALUE : this.offset + this.limit;
+        if (wanted <= this.memoryRows) {
+            if (this.heap == null) {
+                this.heap = new PriorityQueue<>((int)Math.min(wanted, 1024), this.comparator.reversed());
+            }
+            this.heap.add(row);
+            if (this.heap.size() > wanted) {
+                this.heap.poll();
+            }
+            return true;
+        }
+        if (this.buffer == null) {
+            this.buffer = new ArrayList<>();
+        }
+        this.buffer.add(row);
+        if (this.buffer.size() >= this.memoryRows) {
+            try {
+                this.spill();
+            }
+            catch (IOException e) {
+                this.error = e;
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Hands the page to the consumer once every row has been added. Nothing is left to do without an order.
+     * @throws IOException If a sorted run couldn't be written or read back.
+     */
+    public void finish() throws IOException {
+        if (this.error != null) {
+            throw this.error;
+        }
+        if (this.heap != null) {
+            List<Row> rows = new ArrayList<>(this.heap);
+            rows.sort(this.comparator);
+            this.emit(rows);
+        }
+        else if (this.buffer != null && this.runs.isEmpty()) {
+            this.buffer.sort(this.comparator);
+            this.emit(this.buffer);
+        }
+        else if (!this.runs.isEmpty()) {
+            if (!this.buffer.isEmpty()) {
+                this.spill();
+            }
+            this.merge();
+        }
+    }
+
+
+    /**
+     * Gets the number of rows added so far.
+     * @return row count
+     */
+    public long getCount() {
+        return this.seen;
+    }
+
+
+    /**
+     * Gets the number of sorted runs written to disk.
+     * @return run count, 0 if the listing was sorted in memory
+     */
+    public int getRunCount() {
+        return this.runs.size();
+    }
+
+
+    /**
+     * Hands out the page of rows already in order.
+     * @param rows sorted rows
+     */
+    private void emit(List<Row> rows) {
+        long end = Math.min(rows.size(), this.offset + Math.min(this.limit, rows.size()));
+        for (long i = this.offset; i < end; ++i) {
+            this.out.accept(rows.get((int)i));
+        }
+    }
+
+
+    /**
+     * Sorts the buffered rows and writes them to a temporary file as one run.
+     */
+    private void spill() throws IOException {
+        this.buffer.sort(this.comparator);
+        File run = File.createTempFile("listing", ".run");
+        run.deleteOnExit();
+        this.runs.add(run);
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)))) {
+            for (Row row : this.buffer) {
+                data.writeUTF(row.name);
+                data.writeLong(row.size);
+                data.writeLong(row.mtime);
+                data.writeUTF(row.line);
+            }
+        }
+        this.buffer.clear();
+    }
+
+
+    /**
+     * A sorted run being read back, with its next row.
+     */
+    private static class Run {
+        private final DataInputStream data;
+        private Row head;
+
+        private Run(File file) throws IOException {
+            this.data = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            this.advance();
+        }
+
+        private void advance() throws IOException {
+            try {
+                this.head = new Row(this.data.readUTF(), this.data.readLong(), this.data.readLong(), this.data.readUTF());
+            }
+            catch (EOFException e) {
+                this.head = null;
+                this.data.close();
+            }
+        }
+    }
+
+
+    /**
+     * Merges the sorted runs, handing out the page and stopping as soon as it is complete.
+     */
+    private void merge() throws IOException {
+        PriorityQueue<Run> open = new PriorityQueue<>(this.runs.size(), (a, b) -> this.comparator.compare(a.head, b.head));
+        try {
+            for (File file : this.runs) {
+                Run run = new Run(file);
+                if (run.head != null) {
+                    open.add(run);
+                }
+            }
+            long index = 0;
+            while (!open.isEmpty() && index - this.offset < this.limit) {
+                Run run = open.poll();
+                if (index++ >= this.offset) {
+                    this.out.accept(run.head);
+                }
+                run.advance();
+                if (run.head != null) {
+                    open.add(run);
+                }
+            }
+        }
+        finally {
+            for (Run run : open) {
+                run.data.close();
+            }
+        }
+    }
+
+
+    /**
+     * Removes the temporary runs.
+     */
+    @Override
+    public void close() {
+        for (File run : this.runs) {
+            run.delete();
+        }
+    }
+}
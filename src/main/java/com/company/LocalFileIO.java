@@ -0,0 +1,315 @@
+package com.company;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Local side of a transfer, reading and writing files through FileChannel.
+ * Large files are read through memory-mapped regions and everything else through pooled direct buffers,
+ * so the file data never passes through a fresh heap buffer. JSch's streams work on byte arrays,
+ * which are borrowed from a pool as well, leaving one copy between the file and the packet.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class LocalFileIO {
+    public final static int DIRECT_BUFFER_SIZE = 256 * 1024;
+    public final static long MAP_THRESHOLD = 16L * 1024 * 1024;
+    public final static long MAP_REGION_SIZE = 64L * 1024 * 1024;
+    public final static int MAX_POOLED = 32;
+    private final static ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    //Idle buffers by capacity, at most MAX_POOLED of each.
+    private final static Map<Integer, Queue<ByteBuffer>> directBuffers = new ConcurrentHashMap<>();
+    private final static Map<Integer, Queue<byte[]>> arrays = new ConcurrentHashMap<>();
+
+
+    /**
+     * Reads a region of a file, mapped if it is at least MAP_THRESHOLD bytes long.
+     * Closing the stream returns its buffer to the pool but leaves the file open.
+     * @param file file to read from
+     * @param position first byte to read
+     * @param length most bytes to read, Long.MAX_VALUE for the rest of the file
+     * @return the stream
+     * @throws IOException If the file size can't be read.
+     */
+    public static Input newInputStream(FileChannel file, long position, long length) throws IOException {
+        return newInputStream(file, position, length, MAP_THRESHOLD);
+    }
+
+
+    /**
+     * Reads a region of a file with a given mapping threshold.
+     * @param file file to read from
+     * @param position first byte to read
+     * @param length most bytes to read, Long.MAX_VALUE for the rest of the file
+     * @param mapThreshold smallest region that is mapped rather than read
+     * @return the stream
+     * @throws IOException If the file size can't be read.
+     */
+    static Input newInputStream(FileChannel file, long position, long length, long mapThreshold) throws IOException {
+        long end = Math.min(file.size(), length > Long.MAX_VALUE - position ? Long.MAX_VALUE : position + length);
+        return new Input(file, position, Math.max(position, end), end - position >= mapThreshold);
+    }
+
+
+    /**
+     * Writes into a file from a position on through a pooled direct buffer.
+     * Closing the stream writes what is left and returns the buffer, but leaves the file open.
+     * @param file file to write into
+     * @param position first byte to write
+     * @return the stream
+     */
+    public static Output newOutputStream(FileChannel file, long position) {
+        return new Output(file, position);
+    }
+
+
+    /**
+     * Borrows a byte array to hand data to JSch with.
+     * @param size length of the array
+     * @return an array of exactly that length, with arbitrary contents
+     */
+    public static byte[] borrowArray(int size) {
+        Queue<byte[]> idle = arrays.get(size);
+        byte[] array = idle == null ? null : idle.poll();
+        return array != null ? array : new byte[size];
+    }
+
+
+    /**
+     * Returns a borrowed array to the pool.
+     * @param array array from borrowArray, no longer used by the caller
+     */
+    public static void release(byte[] array) {
+        Queue<byte[]> idle = arrays.computeIfAbsent(array.length, size -> new ConcurrentLinkedQueue<>());
+        if (idle.size() < MAX_POOLED) {
+            idle.offer(array);
+        }
+    }
+
+
+    /**
+     * Borrows a cleared direct buffer.
+     * @param size capacity of the buffer
+     * @return the buffer
+     */
+    private static ByteBuffer borrowDirect(int size) {
+        Queue<ByteBuffer> idle = directBuffers.get(size);
+        ByteBuffer buffer = idle == null ? null : idle.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(size);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+
+    /**
+     * Returns a borrowed direct buffer to the pool.
+     * @param buffer buffer from borrowDirect, no longer used by the caller
+     */
+    private static void release(ByteBuffer buffer) {
+        Queue<ByteBuffer> idle = directBuffers.computeIfAbsent(buffer.capacity(), size -> new ConcurrentLinkedQueue<>());
+        if (idle.size() < MAX_POOLED) {
+            idle.offer(buffer);
+        }
+    }
+
+
+    /**
+     * Stream over a region of a file. Positional reads leave the channel's own position alone,
+     * so several streams can read one file at once.
+     */
+    public static final class Input extends InputStream {
+        private final FileChannel file;
+        private final long end;
+        private final boolean mapped;
+        private final byte[] single = new byte[1];
+        private long position;
+        private ByteBuffer buffer;
+
+        private Input(FileChannel file, long position, long end, boolean mapped) {
+            this.file = file;
+            this.position = position;
+            this.end = end;
+            this.mapped = mapped;
+            if (mapped) {
+                this.buffer = EMPTY;
+            }
+            else {
+                this.buffer = borrowDirect(DIRECT_BUFFER_SIZE);
+                this.buffer.flip();
+            }
+        }
+
+        /**
+         * Determines whether the region is read through mapped memory.
+         * @return true if mapped, false if read through a direct buffer
+         */
+        public boolean isMapped() {
+            return this.mapped;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return this.read(this.single, 0, 1) < 0 ? -1 : this.single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.fill()) {
+                return -1;
+            }
+            int count = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, count);
+            return count;
+        }
+
+        /**
+         * Makes sure the buffer holds unread bytes, mapping the next region or reading the next block.
+         * @return false at the end of the region
+         */
+        private boolean fill() throws IOException {
+            if (this.buffer == null) {
+                throw new IOException("Stream Closed");
+            }
+            if (this.buffer.hasRemaining()) {
+                return true;
+            }
+            if (this.position >= this.end) {
+                return false;
+            }
+            if (this.mapped) {
+                long size = Math.min(MAP_REGION_SIZE, this.end - this.position);
+                MappedByteBuffer region = this.file.map(FileChannel.MapMode.READ_ONLY, this.position, size);
+                this.position += size;
+                this.buffer = region;
+                return true;
+            }
+            this.buffer.clear();
+            this.buffer.limit((int)Math.min(this.buffer.capacity(), this.end - this.position));
+            int read = this.file.read(this.buffer, this.position);
+            this.buffer.flip();
+            if (read <= 0) {
+                return false;
+            }
+            this.position += read;
+            return true;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0 || this.buffer == null) {
+                return 0;
+            }
+            long buffered = Math.min(n, this.buffer.remaining());
+            this.buffer.position(this.buffer.position() + (int)buffered);
+            long skipped = buffered + Math.min(n - buffered, this.end - this.position);
+            this.position += skipped - buffered;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            if (this.buffer == null) {
+                return 0;
+            }
+            return (int)Math.min(Integer.MAX_VALUE, this.buffer.remaining() + this.end - this.position);
+        }
+
+        @Override
+        public void close() {
+            if (this.buffer != null && !this.mapped) {
+                release(this.buffer);
+            }
+            this.buffer = null;
+        }
+    }
+
+
+    /**
+     * Stream writing into a file at a position through a direct buffer.
+     */
+    public static final class Output extends OutputStream {
+        private final FileChannel file;
+        private final byte[] single = new byte[1];
+        private long position;
+        private ByteBuffer buffer = borrowDirect(DIRECT_BUFFER_SIZE);
+
+        private Output(FileChannel file, long position) {
+            this.file = file;
+            this.position = position;
+        }
+
+        /**
+         * Gets the position up to which the file has been written. Bytes still in the buffer aren't counted.
+         * @return offset of the first byte not yet in the file
+         */
+        public long getPosition() {
+            return this.position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.single[0] = (byte)b;
+            this.write(this.single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (this.buffer == null) {
+                throw new IOException("Stream Closed");
+            }
+            while (len > 0) {
+                int count = Math.min(len, this.buffer.remaining());
+                this.buffer.put(b, off, count);
+                off += count;
+                len -= count;
+                if (!this.buffer.hasRemaining()) {
+                    this.flush();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (this.buffer == null) {
+                return;
+            }
+            this.buffer.flip();
+            try {
+                while (this.buffer.hasRemaining()) {
+                    this.position += this.file.write(this.buffer, this.position);
+                }
+            }
+            finally {
+                this.buffer.compact();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.buffer == null) {
+                return;
+            }
+            try {
+                this.flush();
+            }
+            finally {
+                release(this.buffer);
+                this.buffer = null;
+            }
+        }
+    }
+}
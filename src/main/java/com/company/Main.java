@@ -17,9 +17,13 @@ public class Main {
     /**
      * Processes the initial user menu and user input.
      * Offers the user to connect to the server or quit the program.
+     * With arguments, runs a batch file instead, see BatchRunner.
      * @param args  list of command line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(BatchRunner.run(args));
+        }
         clearScreen();
         User user = new User();
         CommandSFTP command = new CommandSFTP();
@@ -147,6 +151,23 @@ public class Main {
                     clearScreen();
                 } break;
                 case 3: {
+                    command.setTransferWorkers();
+                    clearScreen();
+                } break;
+                case 4: {
+                    try {
+                        command.setThroughputProfile();
+                    } catch (SftpException e) {
+                        showMessage("Unable to Measure Throughput");
+                    }
+                } break;
+                case 5: {
+                    command.setCipherSelection();
+                } break;
+                case 6: {
+                    command.setListingOrder();
+                } break;
+                case 7: {
                     clearScreen();
                     return;
                 }
@@ -313,6 +334,36 @@ public class Main {
                     }
                 } break;
                 case 6: {
+                    clearScreen();
+                    try {
+                        command.uploadRemoteDirectory();
+                    } catch (SftpException e) {
+                        showMessage("Unable to Upload Directory");
+                    }
+                } break;
+                case 7: {
+                    clearScreen();
+                    try {
+                        command.listCurrentRemoteDirectory();
+                    } catch (SftpException e) {
+                        showMessage("Unable to List Directory");
+                    }
+                    System.out.println();
+                    try {
+                        command.downloadRemoteDirectory();
+                    } catch (SftpException e) {
+                        showMessage("Unable to Download Directory");
+                    }
+                } break;
+                case 8: {
+                    clearScreen();
+                    try {
+                        command.syncDirectories();
+                    } catch (SftpException e) {
+                        showMessage("Unable to Sync Directories");
+                    }
+                } break;
+                case 9: {
                     clearScreen();
                     return;
                 }
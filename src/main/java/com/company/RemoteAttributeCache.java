@@ -0,0 +1,236 @@
+package com.company;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Remembers what is known about remote paths so existence, size and directory checks can skip the round trip.
+ * A path can be cached with its full attributes, as known to exist, or as known to be absent.
+ * Entries older than the staleness bound are ignored.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class RemoteAttributeCache {
+    public final static long DEFAULT_MAX_AGE_MILLIS = 10 * 1000;
+    public final static int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final int maxEntries;
+    private long maxAgeMillis;
+    private final LinkedHashMap<String, Known> entries;
+
+
+    /**
+     * What is known about one path.
+     */
+    private static class Known {
+        private final SftpATTRS attrs;
+        private final boolean exists;
+        private final boolean dir;
+        private final long readAt;
+
+        private Known(SftpATTRS attrs, boolean exists, boolean dir) {
+            this.attrs = attrs;
+            this.exists = exists;
+            this.dir = dir;
+            this.readAt = System.currentTimeMillis();
+        }
+    }
+
+
+    /**
+     * Constructor with the default staleness bound and size.
+     */
+    public RemoteAttributeCache() {
+        this(DEFAULT_MAX_AGE_MILLIS, DEFAULT_MAX_ENTRIES);
+    }
+
+
+    /**
+     * Constructor that sets the staleness bound and the size bound.
+     * @param maxAgeMillis how long an entry is trusted, 0 to disable caching
+     * @param maxEntries most paths kept at once
+     */
+    public RemoteAttributeCache(long maxAgeMillis, int maxEntries) {
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<String, Known>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Known> eldest) {
+                return size() > RemoteAttributeCache.this.maxEntries;
+            }
+        };
+    }
+
+
+    /**
+     * Gets the cached attributes of a path.
+     * @param path absolute remote path
+     * @return the attributes, null if unknown, absent or only known to exist.
+     */
+    public synchronized SftpATTRS get(String path) {
+        Known known = lookup(path);
+        return known == null ? null : known.attrs;
+    }
+
+
+    /**
+     * Determines whether a path exists, as far as the cache knows.
+     * @param path absolute remote path
+     * @return true or false if known, null if the server must be asked.
+     */
+    public synchronized Boolean exists(String path) {
+        Known known = lookup(path);
+        return known == null ? null : known.exists;
+    }
+
+
+    /**
+     * Determines whether a path is a directory, as far as the cache knows.
+     * @param path absolute remote path
+     * @return true or false if known, null if the server must be asked.
+     */
+    public synchronized Boolean isDirectory(String path) {
+        Known known = lookup(path);
+        return known == null || !known.exists ? null : known.dir;
+    }
+
+
+    /**
+     * Caches attributes read from the server.
+     * @param path absolute remote path
+     * @param attrs the path's attributes
+     */
+    public synchronized void put(String path, SftpATTRS attrs) {
+        store(path, new Known(attrs, true, attrs.isDir()));
+    }
+
+
+    /**
+     * Caches every entry of a directory listing. Symbolic links are skipped,
+     * since a listing holds the link's own attributes rather than its target's.
+     * @param directory absolute remote directory that was listed
+     * @param listing the directory entries
+     */
+    public synchronized void putListing(String directory, Vector<ChannelSftp.LsEntry> listing) {
+        String base = RemoteListingCache.normalize(directory);
+        for (ChannelSftp.LsEntry entry : listing) {
+            SftpATTRS attrs = entry.getAttrs();
+            if (attrs.isLink() || entry.getFilename().equals("..")) {
+                continue;
+            }
+            if (entry.getFilename().equals(".")) {
+                put(base, attrs);
+            }
+            else {
+                put(base.equals("/") ? "/" + entry.getFilename() : base + "/" + entry.getFilename(), attrs);
+            }
+        }
+    }
+
+
+    /**
+     * Records that a path was just created, without its full attributes.
+     * @param path absolute remote path
+     * @param dir true if the path is a directory
+     */
+    public synchronized void putExists(String path, boolean dir) {
+        store(path, new Known(null, true, dir));
+    }
+
+
+    /**
+     * Records that a path does not exist.
+     * @param path absolute remote path
+     */
+    public synchronized void putAbsent(String path) {
+        store(path, new Known(null, false, false));
+    }
+
+
+    /**
+     * Records that a path was moved, carrying what is known about it to the new path.
+     * Anything cached below the old path is dropped.
+     * @param from absolute remote path before the move
+     * @param to absolute remote path after the move
+     */
+    public synchronized void move(String from, String to) {
+        Known known = lookup(from);
+        invalidateTree(from);
+        putAbsent(from);
+        invalidateTree(to);
+        if (known != null && known.exists) {
+            store(to, new Known(known.attrs, true, known.dir));
+        }
+    }
+
+
+    /**
+     * Forgets a path and everything below it.
+     * @param path absolute remote path
+     */
+    public synchronized void invalidateTree(String path) {
+        String key = RemoteListingCache.normalize(path);
+        String prefix = key.endsWith("/") ? key : key + "/";
+        Iterator<String> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            String cached = it.next();
+            if (cached.equals(key) || cached.startsWith(prefix)) {
+                it.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Forgets every path.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+
+    /**
+     * Sets how long entries are trusted. Existing entries are dropped.
+     * @param maxAgeMillis staleness bound in milliseconds, 0 to disable caching
+     */
+    public synchronized void setMaxAge(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+        entries.clear();
+    }
+
+
+    /**
+     * Finds a fresh entry. Must hold the cache lock.
+     * @param path absolute remote path
+     * @return the entry, null if unknown or stale
+     */
+    private Known lookup(String path) {
+        String key = RemoteListingCache.normalize(path);
+        Known known = entries.get(key);
+        if (known == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - known.readAt >= maxAgeMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return known;
+    }
+
+
+    /**
+     * Stores an entry if caching is enabled. Must hold the cache lock.
+     * @param path absolute remote path
+     * @param known what is known about the path
+     */
+    private void store(String path, Known known) {
+        if (maxAgeMillis > 0) {
+            entries.put(RemoteListingCache.normalize(path), known);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.company;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams remote directory listings to a visitor as ChannelSftp decodes them, instead of
+ * building the whole Vector first, so a directory with millions of entries doesn't have to fit in memory.
+ * A visitor can stop the listing early. Complete listings up to RemoteListingCache.MAX_LISTING_ENTRIES
+ * entries are cached; larger or stopped ones are not. With metrics set, each server listing is timed as "ls",
+ * leaving out cache hits and the time spent in the visitor.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class RemoteLister {
+    private final ChannelPool pool;
+    private final RemoteListingCache listingCache;
+    private final RemoteAttributeCache attributeCache;
+    private TransferMetrics metrics = null;
+
+
+    /**
+     * Receives listing entries one at a time.
+     */
+    public interface Visitor {
+        /**
+         * Handles one entry, which may be "." or "..".
+         * @param entry the entry just read
+         * @return true to keep listing, false to stop
+         */
+        boolean visit(ChannelSftp.LsEntry entry);
+    }
+
+
+    /**
+     * Constructor that sets the channel pool and the caches to answer from and fill.
+     * @param pool pool to lease channels from
+     * @param listingCache cache of whole listings, may be null
+     * @param attributeCache cache of entry attributes, may be null
+     */
+    public RemoteLister(ChannelPool pool, RemoteListingCache listingCache, RemoteAttributeCache attributeCache) {
+        this.pool = pool;
+        this.listingCache = listingCache;
+        this.attributeCache = attributeCache;
+    }
+
+
+    /**
+     * Sets the metrics that server listings are timed into.
+     * @param metrics metrics to record into, null for none
+     */
+    public void setMetrics(TransferMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+
+    /**
+     * Lists a remote directory on a pooled channel, from the listing cache when possible.
+     * @param path absolute remote directory
+     * @param cached true to answer from the listing cache when possible
+     * @param visitor receives the entries
+     * @return true if every entry was visited, false if the visitor stopped the listing
+     * @throws SftpException If the directory can't be listed.
+     */
+    public boolean list(String path, boolean cached, Visitor visitor) throws SftpException {
+        if (cached && this.listingCache != null) {
+            Vector<ChannelSftp.LsEntry> listing = this.listingCache.get(path);
+            if (listing != null) {
+                for (ChannelSftp.LsEntry entry : listing) {
+                    if (!visitor.visit(entry)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+
+        //Entries are kept for the caches only until the listing outgrows them.
+        AtomicReference<Vector<ChannelSftp.LsEntry>> kept = new AtomicReference<>(new Vector<>());
+        long[] visiting = {0};
+        long start = System.nanoTime();
+        boolean failed = true;
+        boolean complete;
+        try {
+            complete = this.pool.execute(channel -> list(channel, path, entry -> {
+                Vector<ChannelSftp.LsEntry> listing = kept.get();
+                if (listing != null) {
+                    listing.add(entry);
+                    if (listing.size() > RemoteListingCache.MAX_LISTING_ENTRIES) {
+                        kept.set(null);
+                    }
+                }
+                long visitStart = System.nanoTime();
+                try {
+                    return visitor.visit(entry);
+                }
+                finally {
+                    visiting[0] += System.nanoTime() - visitStart;
+                }
+            }));
+            failed = false;
+        }
+        finally {
+            if (this.metrics != null) {
+                this.metrics.record("ls", System.nanoTime() - start - visiting[0], failed);
+            }
+        }
+        Vector<ChannelSftp.LsEntry> listing = kept.get();
+        if (complete && listing != null) {
+            if (this.listingCache != null) {
+                this.listingCache.put(path, listing);
+            }
+            if (this.attributeCache != null) {
+                this.attributeCache.putListing(path, listing);
+            }
+        }
+        return complete;
+    }
+
+
+    /**
+     * Lists a remote directory on a channel the caller holds, without any caching.
+     * @param channel connected channel
+     * @param path absolute remote directory
+     * @param visitor receives the entries
+     * @return true if every entry was visited, false if the visitor stopped the listing
+     * @throws SftpException If the directory can't be listed.
+     */
+    public static boolean list(ChannelSftp channel, String path, Visitor visitor) throws SftpException {
+        boolean[] stopped = {false};
+        channel.ls(path, entry -> {
+            if (visitor.visit(entry)) {
+                return ChannelSftp.LsEntrySelector.CONTINUE;
+            }
+            stopped[0] = true;
+            return ChannelSftp.LsEntrySelector.BREAK;
+        });
+        return !stopped[0];
+    }
+}
@@ -0,0 +1,192 @@
+package com.company;
+
+import com.jcraft.jsch.ChannelSftp;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Remembers remote directory listings for a short time so repeated listings skip the round trip.
+ * Entries expire after a time to live, and the least recently used entry is dropped once the cache is full.
+ * Listings longer than MAX_LISTING_ENTRIES aren't kept, so a huge directory can't fill the heap.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class RemoteListingCache {
+    public final static long DEFAULT_TTL_MILLIS = 30 * 1000;
+    public final static int DEFAULT_MAX_ENTRIES = 256;
+    public final static int MAX_LISTING_ENTRIES = 10000;
+
+    private final int maxEntries;
+    private long ttlMillis;
+    private final LinkedHashMap<String, Listing> entries;
+
+
+    /**
+     * A cached listing and when it was read.
+     */
+    private static class Listing {
+        private final Vector<ChannelSftp.LsEntry> entries;
+        private final long readAt;
+
+        private Listing(Vector<ChannelSftp.LsEntry> entries, long readAt) {
+            this.entries = entries;
+            this.readAt = readAt;
+        }
+    }
+
+
+    /**
+     * Constructor with the default time to live and size.
+     */
+    public RemoteListingCache() {
+        this(DEFAULT_TTL_MILLIS, DEFAULT_MAX_ENTRIES);
+    }
+
+
+    /**
+     * Constructor that sets the time to live and the size bound.
+     * @param ttlMillis how long a listing stays valid, 0 to disable caching
+     * @param maxEntries most directories kept at once
+     */
+    public RemoteListingCache(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<String, Listing>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Listing> eldest) {
+                return size() > RemoteListingCache.this.maxEntries;
+            }
+        };
+    }
+
+
+    /**
+     * Gets a cached listing.
+     * @param path absolute remote directory
+     * @return the listing, null if not cached or expired. Callers must not modify it.
+     */
+    public synchronized Vector<ChannelSftp.LsEntry> get(String path) {
+        String key = normalize(path);
+        Listing listing = entries.get(key);
+        if (listing == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - listing.readAt >= ttlMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return listing.entries;
+    }
+
+
+    /**
+     * Caches a listing that was just read in full.
+     * @param path absolute remote directory
+     * @param listing the directory entries, not kept if there are more than MAX_LISTING_ENTRIES
+     */
+    public synchronized void put(String path, Vector<ChannelSftp.LsEntry> listing) {
+        if (ttlMillis <= 0 || listing.size() > MAX_LISTING_ENTRIES) {
+            return;
+        }
+        entries.put(normalize(path), new Listing(listing, System.currentTimeMillis()));
+    }
+
+
+    /**
+     * Drops the listing of the directory that holds a path, after the path was created, changed or removed.
+     * @param path absolute remote path that changed
+     */
+    public synchronized void invalidateParent(String path) {
+        entries.remove(parent(normalize(path)));
+    }
+
+
+    /**
+     * Drops the listings of a directory, everything below it and its parent, after the directory was removed or moved.
+     * @param path absolute remote directory that changed
+     */
+    public synchronized void invalidateTree(String path) {
+        String key = normalize(path);
+        String prefix = key.endsWith("/") ? key : key + "/";
+        Iterator<String> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            String cached = it.next();
+            if (cached.equals(key) || cached.startsWith(prefix)) {
+                it.remove();
+            }
+        }
+        entries.remove(parent(key));
+    }
+
+
+    /**
+     * Drops every listing.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+
+    /**
+     * Sets how long listings stay valid. Existing listings are dropped.
+     * @param ttlMillis time to live in milliseconds, 0 to disable caching
+     */
+    public synchronized void setTtl(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        entries.clear();
+    }
+
+
+    /**
+     * Gets the number of cached listings, including expired ones not yet dropped.
+     * @return cached listing count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+
+    /**
+     * Removes ".", ".." and repeated or trailing slashes from an absolute remote path.
+     * @param path absolute remote path
+     * @return the normalized path
+     */
+    static String normalize(String path) {
+        Deque<String> parts = new ArrayDeque<>();
+        for (String part : path.split("/")) {
+            if (part.isEmpty() || part.equals(".")) {
+                continue;
+            }
+            if (part.equals("..")) {
+                parts.pollLast();
+            }
+            else {
+                parts.addLast(part);
+            }
+        }
+        if (parts.isEmpty()) {
+            return "/";
+        }
+        StringBuilder normalized = new StringBuilder();
+        for (String part : parts) {
+            normalized.append('/').append(part);
+        }
+        return normalized.toString();
+    }
+
+
+    /**
+     * Gets the directory that holds a normalized path.
+     * @param path normalized absolute remote path
+     * @return the parent directory
+     */
+    static String parent(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash <= 0 ? "/" : path.substring(0, slash);
+    }
+}
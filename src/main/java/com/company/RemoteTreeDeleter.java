@@ -0,0 +1,264 @@
+package com.company;
+
+import com.jcraft.jsch.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Deletes a remote directory tree with a work stealing pool over several leased channels.
+ * Files are removed in batches spread across the channels, and each directory is removed
+ * once everything below it is gone. Failures are collected instead of stopping the walk.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class RemoteTreeDeleter {
+    public final static int BATCH_SIZE = 64;
+    public final static int PROGRESS_INTERVAL = 1000;
+
+    private final ChannelPool pool;
+    private final int parallelism;
+
+
+    /**
+     * Progress and outcome of a delete.
+     */
+    public static class Report {
+        private final AtomicLong files = new AtomicLong();
+        private final AtomicLong directories = new AtomicLong();
+        private final AtomicLong removed = new AtomicLong();
+        private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        private final long startTime = System.currentTimeMillis();
+
+
+        /**
+         * Gets the number of files removed so far.
+         * @return removed file count
+         */
+        public long getFiles() {
+            return files.get();
+        }
+
+
+        /**
+         * Gets the number of directories removed so far.
+         * @return removed directory count
+         */
+        public long getDirectories() {
+            return directories.get();
+        }
+
+
+        /**
+         * Gets every entry that could not be removed, with the reason.
+         * @return "path: reason" for each failure
+         */
+        public List<String> getFailures() {
+            synchronized (failures) {
+                return new ArrayList<>(failures);
+            }
+        }
+
+
+        /**
+         * Returns whether the whole tree was removed.
+         * @return true if nothing failed, false otherwise.
+         */
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+
+
+        @Override
+        public String toString() {
+            return String.format("Deleted %d Files and %d Directories in %.2fs, %d Failures",
+                    getFiles(), getDirectories(), (System.currentTimeMillis() - startTime) / 1000.0,
+                    failures.size());
+        }
+    }
+
+
+    /**
+     * Constructor that sets the channel pool and the number of concurrent workers.
+     * @param pool pool to lease channels from
+     * @param parallelism number of workers, capped by the pool size
+     */
+    public RemoteTreeDeleter(ChannelPool pool, int parallelism) {
+        this.pool = pool;
+        this.parallelism = Math.max(1, Math.min(parallelism, pool.getMaxSize()));
+    }
+
+
+    /**
+     * Deletes a directory and everything below it.
+     * @param root absolute remote directory
+     * @param progress called with the report every PROGRESS_INTERVAL removals, may be null
+     * @return the outcome of the delete
+     */
+    public Report delete(String root, Consumer<Report> progress) {
+        Report report = new Report();
+        ForkJoinPool workers = new ForkJoinPool(this.parallelism);
+        try {
+            workers.invoke(new DirectoryTask(root, report, progress));
+        }
+        finally {
+            workers.shutdown();
+        }
+        return report;
+    }
+
+
+    /**
+     * Counts a removal and reports progress when due.
+     * @param counter counter to bump
+     * @param report the running report
+     * @param progress progress callback, may be null
+     */
+    private static void removed(AtomicLong counter, Report report, Consumer<Report> progress) {
+        counter.incrementAndGet();
+        //The total is bumped once per removal, so exactly one caller sees each multiple of the interval.
+        long total = report.removed.incrementAndGet();
+        if (progress != null && total % PROGRESS_INTERVAL == 0) {
+            progress.accept(report);
+        }
+    }
+
+
+    /**
+     * Lists a directory, deletes its contents in parallel and then removes the directory itself.
+     * The task visits its own listing, collecting files into the current batch as the entries arrive.
+     */
+    private class DirectoryTask extends RecursiveAction implements RemoteLister.Visitor {
+        private final String directory;
+        private final Report report;
+        private final Consumer<Report> progress;
+        private final List<RecursiveAction> children = new ArrayList<>();
+        private List<String> batch = new ArrayList<>();
+
+        private DirectoryTask(String directory, Report report, Consumer<Report> progress) {
+            this.directory = directory;
+            this.report = report;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            //Work is forked while the listing streams in, so the directory's entries are never all held at once.
+            boolean listed = true;
+            try {
+                pool.execute(c -> RemoteLister.list(c, directory, this));
+            }
+            catch (SftpException e) {
+                report.failures.add(directory + ": " + e.getMessage());
+                listed = false;
+            }
+            startBatch();
+            for (RecursiveAction child : children) {
+                child.join();
+            }
+            if (!listed) {
+                return;
+            }
+
+            try {
+                pool.execute(c -> {
+                    c.rmdir(directory);
+                    return null;
+                });
+                removed(report.directories, report, progress);
+            }
+            catch (SftpException e) {
+                report.failures.add(directory + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public boolean visit(ChannelSftp.LsEntry item) {
+            String name = item.getFilename();
+            if (name.equals(".") || name.equals("..")) {
+                return true;
+            }
+            String path = directory.endsWith("/") ? directory + name : directory + "/" + name;
+            if (item.getAttrs().isDir()) {
+                start(children, new DirectoryTask(path, report, progress));
+            }
+            else {
+                batch.add(path);
+                if (batch.size() == BATCH_SIZE) {
+                    startBatch();
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Forks a task for the files collected so far, if any, and starts a new batch.
+         */
+        private void startBatch() {
+            if (!batch.isEmpty()) {
+                start(children, new FileBatchTask(batch, report, progress));
+                batch = new ArrayList<>();
+            }
+        }
+    }
+
+
+    /**
+     * Forks a task and remembers it so it can be joined.
+     * @param started tasks forked so far
+     * @param task task to fork
+     */
+    private static void start(List<RecursiveAction> started, RecursiveAction task) {
+        task.fork();
+        started.add(task);
+    }
+
+
+    /**
+     * Removes a batch of files over one leased channel.
+     */
+    private class FileBatchTask extends RecursiveAction {
+        private final List<String> files;
+        private final Report report;
+        private final Consumer<Report> progress;
+
+        private FileBatchTask(List<String> files, Report report, Consumer<Report> progress) {
+            this.files = files;
+            this.report = report;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            ChannelSftp channel;
+            try {
+                channel = pool.lease();
+            }
+            catch (JSchException e) {
+                for (String file : files) {
+                    report.failures.add(file + ": " + e.getMessage());
+                }
+                return;
+            }
+            try {
+                for (String file : files) {
+                    try {
+                        channel.rm(file);
+                        removed(report.files, report, progress);
+                    }
+                    catch (SftpException e) {
+                        report.failures.add(file + ": " + e.getMessage());
+                    }
+                }
+            }
+            finally {
+                pool.release(channel);
+            }
+        }
+    }
+}
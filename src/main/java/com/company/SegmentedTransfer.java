@@ -0,0 +1,388 @@
+package com.company;
+
+import com.jcraft.jsch.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Moves a single large file as several byte ranges, each over its own leased sftp channel.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class SegmentedTransfer {
+    public final static long DEFAULT_THRESHOLD = 32L * 1024 * 1024;
+    public final static long MIN_SEGMENT_SIZE = 1024 * 1024;
+    public final static int MAX_ATTEMPTS = 3;
+    public final static String PART_SUFFIX = ".part";
+
+    //Opens the remote file for writing without truncating it or moving the offset to its end.
+    //Any mode other than OVERWRITE, RESUME and APPEND does exactly that in ChannelSftp.put.
+    final static int WRITE_AT_OFFSET = 3;
+
+    private final ChannelPool pool;
+    private final int segments;
+    private TransferMetrics metrics = null;
+    private int bufferSize = ThroughputProfile.DEFAULT_BUFFER_SIZE;
+
+
+    /**
+     * Constructor that sets the channel pool and the number of segments.
+     * @param pool pool to lease channels from
+     * @param segments maximum number of ranges transferred at once, capped by the pool size
+     */
+    public SegmentedTransfer(ChannelPool pool, int segments) {
+        this.pool = pool;
+        this.segments = Math.max(1, Math.min(segments, pool.getMaxSize()));
+    }
+
+
+    /**
+     * Counts the bytes and files moved in transfer metrics.
+     * @param metrics metrics to update, null to stop counting
+     */
+    public void setMetrics(TransferMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+
+    /**
+     * Sets how many bytes each range reads or writes at once.
+     * @param bufferSize buffer size in bytes
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+    }
+
+
+    /**
+     * Creates the progress monitor for one transfer.
+     * @param upload true for an upload, false for a download
+     * @return a monitor that counts bytes, null if there are no metrics
+     */
+    private SftpProgressMonitor monitor(boolean upload) {
+        return this.metrics == null ? null : this.metrics.monitor(upload, null, 0);
+    }
+
+
+    /**
+     * Downloads a remote file by fetching its byte ranges in parallel.
+     * The ranges land in a temporary local file that is moved into place once its size matches the remote one,
+     * so a failed download leaves no partly written file at the destination. Each range is retried on its own.
+     * @param source absolute remote path
+     * @param destination local path
+     * @return the outcome of the transfer
+     */
+    public TransferResult download(String source, String destination) {
+        long start = System.currentTimeMillis();
+        long size;
+        try {
+            size = remoteSize(source);
+        }
+        catch (SftpException e) {
+            return TransferResult.failure(source, destination, e.getMessage());
+        }
+
+        File part = new File(destination + PART_SUFFIX);
+        String error = downloadRanges(source, part, size);
+        if (error == null && part.length() != size) {
+            error = "Size Mismatch: expected " + size + " bytes, got " + part.length();
+        }
+        if (error == null) {
+            try {
+                Files.move(part.toPath(), Paths.get(destination),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (IOException e) {
+                error = e.getMessage();
+            }
+        }
+        if (error != null) {
+            part.delete();
+            return TransferResult.failure(source, destination, error);
+        }
+        return TransferResult.success(source, destination, size, System.currentTimeMillis() - start);
+    }
+
+
+    /**
+     * Fetches every byte range of a remote file into a local file of the same size.
+     * @param source absolute remote path
+     * @param target local file to write into
+     * @param size remote file size
+     * @return null on success, the first error otherwise
+     */
+    private String downloadRanges(String source, File target, long size) {
+        List<long[]> ranges = split(size);
+        ExecutorService executor = Executors.newFixedThreadPool(ranges.size());
+        try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+            file.setLength(size);
+            FileChannel out = file.getChannel();
+
+            List<Future<String>> futures = new ArrayList<>();
+            for (long[] range : ranges) {
+                futures.add(executor.submit(() -> downloadRange(source, out, range[0], range[1])));
+            }
+            for (Future<String> future : futures) {
+                String error = future.get();
+                if (error != null) {
+                    return error;
+                }
+            }
+            return null;
+        }
+        catch (Exception e) {
+            return e.getMessage();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Downloads one byte range, retrying from the last written offset on failure.
+     * @param source absolute remote path
+     * @param out local file to write into
+     * @param offset first byte of the range
+     * @param length number of bytes in the range
+     * @return null on success, the last error otherwise
+     */
+    private String downloadRange(String source, FileChannel out, long offset, long length) {
+        long done = 0;
+        String error = null;
+        byte[] buffer = LocalFileIO.borrowArray(this.bufferSize);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && done < length; ++attempt) {
+            ChannelSftp channel = null;
+            try {
+                channel = this.pool.lease();
+                LocalFileIO.Output target = LocalFileIO.newOutputStream(out, offset + done);
+                try (InputStream in = channel.get(source, monitor(false), offset + done)) {
+                    long received = done;
+                    while (received < length) {
+                        int read = in.read(buffer, 0, (int)Math.min(buffer.length, length - received));
+                        if (read < 0) {
+                            throw new IOException("Unexpected End of File");
+                        }
+                        target.write(buffer, 0, read);
+                        received += read;
+                    }
+                }
+                finally {
+                    //Only what reached the file counts, so a retry starts after the last byte written.
+                    try {
+                        target.close();
+                    }
+                    finally {
+                        done = target.getPosition() - offset;
+                    }
+                }
+            }
+            catch (JSchException | SftpException | IOException e) {
+                error = e.getMessage();
+            }
+            finally {
+                if (channel != null) {
+                    this.pool.release(channel);
+                }
+            }
+        }
+        LocalFileIO.release(buffer);
+        return done < length ? "Segment at " + offset + " Failed: " + error : null;
+    }
+
+
+    /**
+     * Uploads a local file by writing its byte ranges in parallel.
+     * The ranges land in a temporary remote file that is renamed into place once every range is confirmed.
+     * @param source local path
+     * @param destination absolute remote path
+     * @return the outcome of the transfer
+     */
+    public TransferResult upload(String source, String destination) {
+        long start = System.currentTimeMillis();
+        String partName = destination + PART_SUFFIX;
+        File file = new File(source);
+        long size = file.length();
+
+        List<long[]> ranges = split(size);
+        ExecutorService executor = Executors.newFixedThreadPool(ranges.size());
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            FileChannel local = in.getChannel();
+            this.pool.execute(channel -> {
+                try {
+                    channel.put(partName, ChannelSftp.OVERWRITE).close();
+                }
+                catch (IOException e) {
+                    throw new SftpException(ChannelSftp.SSH_FX_FAILURE, e.getMessage());
+                }
+                return null;
+            });
+
+            List<Future<String>> futures = new ArrayList<>();
+            for (long[] range : ranges) {
+                futures.add(executor.submit(() -> uploadRange(local, partName, range[0], range[1])));
+            }
+            String error = null;
+            for (Future<String> future : futures) {
+                String rangeError = future.get();
+                if (error == null) {
+                    error = rangeError;
+                }
+            }
+            String finishError = error;
+            String result = this.pool.execute(channel -> {
+                if (finishError != null) {
+                    removeQuietly(channel, partName);
+                    return finishError;
+                }
+                long remoteSize = channel.stat(partName).getSize();
+                if (remoteSize != size) {
+                    removeQuietly(channel, partName);
+                    return "Size Mismatch: expected " + size + " bytes, got " + remoteSize;
+                }
+                replace(channel, partName, destination);
+                return null;
+            });
+            if (result != null) {
+                return TransferResult.failure(source, destination, result);
+            }
+        }
+        catch (Exception e) {
+            return TransferResult.failure(source, destination, e.getMessage());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return TransferResult.success(source, destination, size, System.currentTimeMillis() - start);
+    }
+
+
+    /**
+     * Uploads one byte range. A failed attempt rewrites the whole range,
+     * since the bytes the server acknowledged before the failure are unknown.
+     * @param local local file to read from
+     * @param destination absolute remote path to write into
+     * @param offset first byte of the range
+     * @param length number of bytes in the range
+     * @return null on success, the last error otherwise
+     */
+    private String uploadRange(FileChannel local, String destination, long offset, long length) {
+        String error = null;
+        byte[] buffer = LocalFileIO.borrowArray(this.bufferSize);
+        try {
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; ++attempt) {
+                ChannelSftp channel = null;
+                try {
+                    channel = this.pool.lease();
+                    long done = 0;
+                    //Closing the stream waits for the server to acknowledge every write.
+                    try (InputStream in = LocalFileIO.newInputStream(local, offset, length);
+                         OutputStream out = channel.put(destination, monitor(true), WRITE_AT_OFFSET, offset)) {
+                        while (done < length) {
+                            int read = in.read(buffer, 0, (int)Math.min(buffer.length, length - done));
+                            if (read < 0) {
+                                throw new IOException("Local File Changed During Upload");
+                            }
+                            out.write(buffer, 0, read);
+                            done += read;
+                        }
+                    }
+                    return null;
+                }
+                catch (JSchException | SftpException | IOException e) {
+                    error = e.getMessage();
+                }
+                finally {
+                    if (channel != null) {
+                        this.pool.release(channel);
+                    }
+                }
+            }
+        }
+        finally {
+            LocalFileIO.release(buffer);
+        }
+        return "Segment at " + offset + " Failed: " + error;
+    }
+
+
+    /**
+     * Moves a finished file over its destination.
+     * Servers without an overwriting rename get the old destination removed first.
+     * @param channel channel to rename over
+     * @param from temporary remote path
+     * @param to final remote path
+     */
+    private void replace(ChannelSftp channel, String from, String to) throws SftpException {
+        try {
+            channel.rename(from, to);
+        }
+        catch (SftpException e) {
+            try {
+                channel.stat(to);
+            }
+            catch (SftpException missing) {
+                throw e;
+            }
+            channel.rm(to);
+            channel.rename(from, to);
+        }
+    }
+
+
+    /**
+     * Removes a remote file, ignoring failures.
+     * @param channel channel to remove over
+     * @param path absolute remote path
+     */
+    private void removeQuietly(ChannelSftp channel, String path) {
+        try {
+            channel.rm(path);
+        }
+        catch (SftpException e) {
+            //Nothing left to clean up.
+        }
+    }
+
+
+    /**
+     * Splits a file into contiguous ranges.
+     * @param size total file size
+     * @return pairs of offset and length
+     */
+    private List<long[]> split(long size) {
+        long count = Math.max(1, Math.min(this.segments, size / MIN_SEGMENT_SIZE));
+        long segmentSize = (size + count - 1) / count;
+        List<long[]> ranges = new ArrayList<>();
+        for (long offset = 0; offset < size; offset += segmentSize) {
+            ranges.add(new long[] {offset, Math.min(segmentSize, size - offset)});
+        }
+        if (ranges.isEmpty()) {
+            ranges.add(new long[] {0, 0});
+        }
+        return ranges;
+    }
+
+
+    /**
+     * Looks up the size of a remote file.
+     * @param path absolute remote path
+     * @return the size in bytes
+     */
+    private long remoteSize(String path) throws SftpException {
+        return this.pool.execute(channel -> channel.stat(path).getSize());
+    }
+}
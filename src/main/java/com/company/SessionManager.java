@@ -0,0 +1,329 @@
+package com.company;
+
+import com.jcraft.jsch.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Keeps sessions to several servers open at once, keyed by user@host:port, and reuses them across commands.
+ * Sessions that stop answering are evicted in the background.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class SessionManager {
+    public final static long DEFAULT_CHECK_MILLIS = 30 * 1000;
+    private final static String [] hostChecking = {"StrictHostKeyChecking", "ask"};
+
+    private final Map<String, ManagedSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService checker;
+
+
+    /**
+     * Connection settings for one server. The password is copied, so the server can be reconnected
+     * after the user's own password has been cleared.
+     */
+    public static class HostConfig {
+        private final User user;
+        private final byte[] password;
+        private final String host;
+        private final int port;
+        private final String knownHostsFile;
+        private final int timeout;
+
+
+        /**
+         * Constructor that sets all parameters necessary to connect.
+         * @param user login information
+         * @param host server ip address
+         * @param port port number to connect to
+         * @param knownHostsFile ssh key known hosts file to check, "" for the default
+         * @param timeout connect and socket timeout in milliseconds
+         */
+        public HostConfig(User user, String host, int port, String knownHostsFile, int timeout) {
+            this(user, user.getPassword() == null ? null : user.getPassword().getBytes(StandardCharsets.UTF_8),
+                    host, port, knownHostsFile, timeout);
+        }
+
+
+        /**
+         * Constructor that takes the password apart from the user.
+         * @param user login information
+         * @param password password to log in with, copied; null to ask the user
+         * @param host server ip address
+         * @param port port number to connect to
+         * @param knownHostsFile ssh key known hosts file to check, "" for the default
+         * @param timeout connect and socket timeout in milliseconds
+         */
+        public HostConfig(User user, byte[] password, String host, int port, String knownHostsFile, int timeout) {
+            this.user = user;
+            this.password = password == null ? null : password.clone();
+            this.host = host;
+            this.port = port;
+            this.knownHostsFile = knownHostsFile;
+            this.timeout = timeout;
+        }
+
+
+        public User getUser() {
+            return user;
+        }
+
+
+        public String getHost() {
+            return host;
+        }
+
+
+        public int getPort() {
+            return port;
+        }
+
+
+        public String getKnownHostsFile() {
+            return knownHostsFile;
+        }
+
+
+        public int getTimeout() {
+            return timeout;
+        }
+
+
+        /**
+         * Gets the key the session is kept under.
+         * @return user@host:port
+         */
+        public String getKey() {
+            return user.getUserName() + "@" + host + ":" + port;
+        }
+    }
+
+
+    /**
+     * An open session and the channel pool on top of it.
+     */
+    private static class ManagedSession {
+        private final HostConfig config;
+        private final Session session;
+        private final ChannelPool pool;
+
+        private ManagedSession(HostConfig config, Session session) {
+            this.config = config;
+            this.session = session;
+            this.pool = new ChannelPool(session, config.getTimeout());
+        }
+
+        private void close() {
+            pool.close();
+            session.disconnect();
+        }
+    }
+
+
+    /**
+     * Constructor that checks session health every DEFAULT_CHECK_MILLIS.
+     */
+    public SessionManager() {
+        this(DEFAULT_CHECK_MILLIS);
+    }
+
+
+    /**
+     * Constructor that sets how often session health is checked.
+     * @param checkMillis time between health checks, 0 to only check on demand
+     */
+    public SessionManager(long checkMillis) {
+        if (checkMillis > 0) {
+            this.checker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "session-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.checker.scheduleWithFixedDelay(this::evictUnhealthy, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        }
+        else {
+            this.checker = null;
+        }
+    }
+
+
+    /**
+     * Gets the open session for a server, connecting it first if needed.
+     * @param config server to connect to
+     * @return a connected session
+     * @throws JSchException If the session can't be connected.
+     * @throws IOException If the known hosts file can't be set up.
+     */
+    public Session getSession(HostConfig config) throws JSchException, IOException {
+        return getManaged(config).session;
+    }
+
+
+    /**
+     * Gets the channel pool of a server's session, connecting it first if needed.
+     * @param config server to connect to
+     * @return the session's channel pool
+     * @throws JSchException If the session can't be connected.
+     * @throws IOException If the known hosts file can't be set up.
+     */
+    public ChannelPool getPool(HostConfig config) throws JSchException, IOException {
+        return getManaged(config).pool;
+    }
+
+
+    /**
+     * Connects to several servers at once.
+     * @param configs servers to connect to
+     * @return the failure for every server that could not be connected, keyed by user@host:port
+     */
+    public Map<String, Exception> connectAll(Collection<HostConfig> configs) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        if (configs.isEmpty()) {
+            return failures;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(configs.size());
+        Map<String, Future<Session>> futures = new LinkedHashMap<>();
+        for (HostConfig config : configs) {
+            futures.put(config.getKey(), executor.submit(() -> getSession(config)));
+        }
+        for (Map.Entry<String, Future<Session>> future : futures.entrySet()) {
+            try {
+                future.getValue().get();
+            }
+            catch (ExecutionException e) {
+                failures.put(future.getKey(), (Exception)e.getCause());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.put(future.getKey(), e);
+            }
+        }
+        executor.shutdown();
+        return failures;
+    }
+
+
+    /**
+     * Closes and removes every session that is disconnected or no longer answers.
+     * @return the number of sessions evicted
+     */
+    public int evictUnhealthy() {
+        int evicted = 0;
+        for (Map.Entry<String, ManagedSession> entry : sessions.entrySet()) {
+            if (!isHealthy(entry.getValue().session) && sessions.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().close();
+                ++evicted;
+            }
+        }
+        return evicted;
+    }
+
+
+    /**
+     * Determines whether a server currently has an open session.
+     * @param key user@host:port
+     * @return true if a session is kept for the key, false otherwise.
+     */
+    public boolean isConnected(String key) {
+        ManagedSession managed = sessions.get(key);
+        return managed != null && managed.session.isConnected();
+    }
+
+
+    /**
+     * Gets the keys of every open session.
+     * @return user@host:port of each session
+     */
+    public Set<String> getKeys() {
+        return new TreeSet<>(sessions.keySet());
+    }
+
+
+    /**
+     * Closes one server's session.
+     * @param key user@host:port
+     */
+    public void close(String key) {
+        ManagedSession managed = sessions.remove(key);
+        if (managed != null) {
+            managed.close();
+        }
+    }
+
+
+    /**
+     * Closes every session and stops the health checks.
+     */
+    public void closeAll() {
+        if (this.checker != null) {
+            this.checker.shutdownNow();
+        }
+        for (String key : new ArrayList<>(sessions.keySet())) {
+            close(key);
+        }
+    }
+
+
+    /**
+     * Gets a healthy managed session, replacing a dead one. Connects at most once per key at a time.
+     * @param config server to connect to
+     * @return the managed session
+     */
+    private ManagedSession getManaged(HostConfig config) throws JSchException, IOException {
+        String key = config.getKey();
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            ManagedSession managed = sessions.get(key);
+            if (managed != null) {
+                if (managed.session.isConnected()) {
+                    return managed;
+                }
+                sessions.remove(key);
+                managed.close();
+            }
+            managed = new ManagedSession(config, connect(config));
+            sessions.put(key, managed);
+            return managed;
+        }
+    }
+
+
+    /**
+     * Opens a new session with the server's own known hosts and timeout.
+     * @param config server to connect to
+     * @return the connected session
+     */
+    private Session connect(HostConfig config) throws JSchException, IOException {
+        JSch jsch = new JSch();
+        jsch.setKnownHosts(CommandSFTP.prepareKnownHostsFile(config.getKnownHostsFile()));
+        Session session = jsch.getSession(config.getUser().getUserName(), config.getHost(), config.getPort());
+        session.setConfig(hostChecking[0], hostChecking[1]);
+        session.setUserInfo(config.getUser());
+        session.setPassword(config.password);
+        session.setTimeout(config.getTimeout());
+        session.connect(config.getTimeout());
+        return session;
+    }
+
+
+    /**
+     * Checks that a session is connected and its socket still takes writes.
+     * @param session session to check
+     * @return true if healthy, false otherwise.
+     */
+    private boolean isHealthy(Session session) {
+        if (!session.isConnected()) {
+            return false;
+        }
+        try {
+            session.sendKeepAliveMsg();
+            return true;
+        }
+        catch (Exception e) {
+            return false;
+        }
+    }
+}
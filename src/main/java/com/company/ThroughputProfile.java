@@ -0,0 +1,219 @@
+package com.company;
+
+import com.jcraft.jsch.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Outstanding request depth and buffer size used for transfers, sized to the link's bandwidth-delay product.
+ * JSch keeps 16 requests in flight with 32 KB buffers, which leaves a fast link with a long round trip idle.
+ * ChannelSftp fixes its local window at 2 MB of 32 KB packets, so more than 64 requests can't be in flight.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class ThroughputProfile {
+    public final static int PACKET_SIZE = 32 * 1024;
+    public final static int DEFAULT_BULK_REQUESTS = 16;
+    public final static int MAX_BULK_REQUESTS = 64;
+    public final static int DEFAULT_BUFFER_SIZE = 32 * 1024;
+    public final static int MAX_BUFFER_SIZE = 1024 * 1024;
+    public final static int PROBE_SIZE = 1024 * 1024;
+    private final static int RTT_SAMPLES = 5;
+
+    private final int bulkRequests;
+    private final int bufferSize;
+    private final double rttMillis;
+    private final double bandwidth;
+
+
+    /**
+     * Constructor for a manual profile.
+     * @param bulkRequests requests in flight per channel, 1 to MAX_BULK_REQUESTS
+     * @param bufferSize bytes read or written at once, PACKET_SIZE to MAX_BUFFER_SIZE
+     * @throws IllegalArgumentException If a value is out of range.
+     */
+    public ThroughputProfile(int bulkRequests, int bufferSize) {
+        this(bulkRequests, bufferSize, -1, -1);
+        if (bulkRequests < 1 || bulkRequests > MAX_BULK_REQUESTS) {
+            throw new IllegalArgumentException("Outstanding requests must be between 1 and " + MAX_BULK_REQUESTS);
+        }
+        if (bufferSize < PACKET_SIZE || bufferSize > MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be between " + PACKET_SIZE / 1024 + " and "
+                    + MAX_BUFFER_SIZE / 1024 + " KB");
+        }
+    }
+
+
+    private ThroughputProfile(int bulkRequests, int bufferSize, double rttMillis, double bandwidth) {
+        this.bulkRequests = bulkRequests;
+        this.bufferSize = bufferSize;
+        this.rttMillis = rttMillis;
+        this.bandwidth = bandwidth;
+    }
+
+
+    /**
+     * Gets JSch's own settings.
+     * @return the default profile
+     */
+    public static ThroughputProfile defaults() {
+        return new ThroughputProfile(DEFAULT_BULK_REQUESTS, DEFAULT_BUFFER_SIZE, -1, -1);
+    }
+
+
+    /**
+     * Sizes a profile for a measured link. Enough requests are kept in flight to cover the bandwidth-delay product.
+     * @param rttMillis round trip time in milliseconds
+     * @param bandwidth bytes per second, 0 or less if unknown
+     * @return the profile, the defaults when the bandwidth is unknown
+     */
+    public static ThroughputProfile forLink(double rttMillis, double bandwidth) {
+        if (bandwidth <= 0 || rttMillis <= 0) {
+            return new ThroughputProfile(DEFAULT_BULK_REQUESTS, DEFAULT_BUFFER_SIZE, rttMillis, bandwidth);
+        }
+        double product = bandwidth * rttMillis / 1000;
+        int bulkRequests = (int)Math.min(MAX_BULK_REQUESTS,
+                Math.max(DEFAULT_BULK_REQUESTS, Math.ceil(product / PACKET_SIZE)));
+        int bufferSize = Integer.highestOneBit((int)Math.min(product, MAX_BUFFER_SIZE));
+        bufferSize = Math.max(DEFAULT_BUFFER_SIZE, bufferSize);
+        return new ThroughputProfile(bulkRequests, bufferSize, rttMillis, bandwidth);
+    }
+
+
+    /**
+     * Measures the round trip time with a few realpath requests and the bandwidth by uploading a probe file.
+     * The probe runs with the most requests in flight, so the measurement isn't capped by the current profile.
+     * @param pool pool to lease the probe channel from
+     * @param directory absolute remote directory to write the probe file into
+     * @return the profile for the measured link
+     * @throws SftpException If the round trip time can't be measured.
+     */
+    public static ThroughputProfile measure(ChannelPool pool, String directory) throws SftpException {
+        return pool.execute(channel -> {
+            try {
+                channel.setBulkRequests(MAX_BULK_REQUESTS);
+            }
+            catch (JSchException e) {
+                throw new SftpException(ChannelSftp.SSH_FX_FAILURE, e.getMessage());
+            }
+            double rttMillis = measureRtt(channel);
+            double bandwidth;
+            try {
+                bandwidth = measureBandwidth(channel, directory, rttMillis);
+            }
+            catch (SftpException | IOException e) {
+                //A read only directory still gets a profile from the round trip time.
+                bandwidth = -1;
+            }
+            return forLink(rttMillis, bandwidth);
+        });
+    }
+
+
+    /**
+     * Takes the median of a few round trips, the first of which also warms up the channel.
+     * @param channel connected channel
+     * @return round trip time in milliseconds
+     */
+    private static double measureRtt(ChannelSftp channel) throws SftpException {
+        double[] samples = new double[RTT_SAMPLES];
+        channel.realpath(".");
+        for (int i = 0; i < samples.length; ++i) {
+            long start = System.nanoTime();
+            channel.realpath(".");
+            samples[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+
+    /**
+     * Uploads PROBE_SIZE random bytes and removes them again.
+     * The open and close round trips are taken off the elapsed time.
+     * @param channel connected channel
+     * @param directory absolute remote directory for the probe file
+     * @param rttMillis measured round trip time
+     * @return bytes per second
+     */
+    private static double measureBandwidth(ChannelSftp channel, String directory, double rttMillis)
+            throws SftpException, IOException {
+        String probe = (directory.endsWith("/") ? directory : directory + "/") + ".throughput-probe-" + System.nanoTime();
+        byte[] block = new byte[PACKET_SIZE];
+        new Random().nextBytes(block);
+        long start = System.nanoTime();
+        try {
+            try (OutputStream out = channel.put(probe, ChannelSftp.OVERWRITE)) {
+                for (int written = 0; written < PROBE_SIZE; written += block.length) {
+                    out.write(block);
+                }
+            }
+            double seconds = Math.max((System.nanoTime() - start) / 1e9 - 2 * rttMillis / 1000, 1e-6);
+            return PROBE_SIZE / seconds;
+        }
+        finally {
+            channel.rm(probe);
+        }
+    }
+
+
+    /**
+     * Gets the requests kept in flight per channel.
+     * @return outstanding request depth
+     */
+    public int getBulkRequests() {
+        return this.bulkRequests;
+    }
+
+
+    /**
+     * Gets the number of bytes read or written at once.
+     * @return buffer size in bytes
+     */
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+
+    /**
+     * Gets the measured round trip time.
+     * @return milliseconds, negative if not measured
+     */
+    public double getRttMillis() {
+        return this.rttMillis;
+    }
+
+
+    /**
+     * Gets the measured bandwidth.
+     * @return bytes per second, negative if not measured
+     */
+    public double getBandwidth() {
+        return this.bandwidth;
+    }
+
+
+    /**
+     * Determines whether the profile was measured rather than set by hand.
+     * @return true if the profile comes from measure or forLink
+     */
+    public boolean isMeasured() {
+        return this.rttMillis > 0;
+    }
+
+
+    @Override
+    public String toString() {
+        String settings = this.bulkRequests + " outstanding requests, " + this.bufferSize / 1024 + " KB buffer";
+        if (!this.isMeasured()) {
+            return settings;
+        }
+        String link = String.format("rtt %.2f ms, ", this.rttMillis);
+        link += this.bandwidth > 0 ? String.format("bandwidth %.1f MB/s, ", this.bandwidth / (1024 * 1024))
+                : "bandwidth unknown, ";
+        return link + settings;
+    }
+}
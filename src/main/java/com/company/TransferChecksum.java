@@ -0,0 +1,246 @@
+package com.company;
+
+import com.jcraft.jsch.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+/**
+ * Computes a checksum of the bytes of a transfer while they flow, so the file is never read a second time.
+ * SHA-256 checksums can be compared with the server's sha256sum over an exec channel.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class TransferChecksum {
+    private final static int MAX_OUTPUT = 4096;
+
+    private final Algorithm algorithm;
+    private final MessageDigest digest;
+    private final CRC32 crc;
+    private String value = null;
+
+
+    /**
+     * Supported checksums, with the remote command that computes the same value.
+     */
+    public enum Algorithm {
+        SHA256("sha256sum", ".sha256"),
+        CRC32(null, ".crc32");
+
+        private final String command;
+        private final String suffix;
+
+        Algorithm(String command, String suffix) {
+            this.command = command;
+            this.suffix = suffix;
+        }
+
+
+        /**
+         * Gets the remote command that prints this checksum.
+         * @return command name, null if no standard command matches
+         */
+        public String getCommand() {
+            return command;
+        }
+
+
+        /**
+         * Gets the extension of a sidecar manifest file.
+         * @return suffix including the dot
+         */
+        public String getSuffix() {
+            return suffix;
+        }
+    }
+
+
+    /**
+     * Constructor that starts an empty checksum.
+     * @param algorithm checksum to compute
+     */
+    public TransferChecksum(Algorithm algorithm) {
+        this.algorithm = algorithm;
+        if (algorithm == Algorithm.SHA256) {
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            }
+            catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            this.crc = null;
+        }
+        else {
+            this.digest = null;
+            this.crc = new CRC32();
+        }
+    }
+
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+
+    /**
+     * Adds bytes to the checksum.
+     * @param b buffer
+     * @param off start of the bytes in the buffer
+     * @param len number of bytes
+     */
+    public void update(byte[] b, int off, int len) {
+        if (digest != null) {
+            digest.update(b, off, len);
+        }
+        else {
+            crc.update(b, off, len);
+        }
+    }
+
+
+    /**
+     * Adds the first bytes of a file to the checksum, for a transfer that resumes after them.
+     * @param file local file
+     * @param length number of bytes to read
+     * @throws IOException If the file can't be read.
+     */
+    public void update(File file, long length) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[32 * 1024];
+            long remaining = length;
+            int read;
+            while (remaining > 0 && (read = in.read(buffer, 0, (int)Math.min(buffer.length, remaining))) > 0) {
+                update(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+
+    /**
+     * Wraps a stream so everything written through it is added to the checksum.
+     * @param out stream to wrap
+     * @return the wrapping stream
+     */
+    public OutputStream wrap(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                update(new byte[] {(byte)b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                update(b, off, len);
+            }
+        };
+    }
+
+
+    /**
+     * Finishes the checksum. Later updates are ignored.
+     * @return lower case hex value
+     */
+    public String getValue() {
+        if (value == null) {
+            if (digest != null) {
+                StringBuilder hex = new StringBuilder();
+                for (byte b : digest.digest()) {
+                    hex.append(String.format("%02x", b));
+                }
+                value = hex.toString();
+            }
+            else {
+                value = String.format("%08x", crc.getValue());
+            }
+        }
+        return value;
+    }
+
+
+    /**
+     * Formats a manifest line the way sha256sum prints it, so the manifest can be checked with sha256sum -c.
+     * @param value hex checksum
+     * @param fileName file the checksum belongs to
+     * @return the line, with its newline
+     */
+    public static String manifestLine(String value, String fileName) {
+        return value + "  " + fileName + "\n";
+    }
+
+
+    /**
+     * Asks the server for the checksum of a file over an exec channel.
+     * @param session connected session
+     * @param algorithm checksum to compute
+     * @param path absolute remote path
+     * @param timeout channel connect timeout in milliseconds
+     * @return lower case hex value, null if the command couldn't read the file or has no output
+     * @throws JSchException If the server does not allow exec, can't run the command, or the algorithm has
+     * no remote command.
+     * @throws IOException If the command output can't be read.
+     */
+    public static String remote(Session session, Algorithm algorithm, String path, int timeout)
+            throws JSchException, IOException {
+        if (algorithm.getCommand() == null) {
+            throw new JSchException("No remote command for " + algorithm);
+        }
+        ChannelExec exec = (ChannelExec)session.openChannel("exec");
+        try {
+            exec.setCommand(algorithm.getCommand() + " " + quote(path));
+            InputStream in = exec.getInputStream();
+            exec.connect(timeout);
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                if (output.size() < MAX_OUTPUT) {
+                    output.write(buffer, 0, read);
+                }
+            }
+            //The exit status can arrive just after the output ends.
+            for (int i = 0; i < 50 && !exec.isClosed(); ++i) {
+                try {
+                    Thread.sleep(10);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            int status = exec.getExitStatus();
+            if (status == -1) {
+                throw new JSchException("Exec not allowed by server");
+            }
+            //The checksum commands exit with 1 when a file can't be read; anything else, such as 127 from
+            //the shell, means the command itself can't run here.
+            if (status == 1) {
+                return null;
+            }
+            if (status != 0) {
+                throw new JSchException(algorithm.getCommand() + " exited with status " + status);
+            }
+            String[] tokens = new String(output.toByteArray(), StandardCharsets.UTF_8).trim().split("\\s+");
+            return tokens[0].isEmpty() ? null : tokens[0].toLowerCase();
+        }
+        finally {
+            exec.disconnect();
+        }
+    }
+
+
+    /**
+     * Quotes a path for a POSIX shell.
+     * @param path path to quote
+     * @return the single quoted path
+     */
+    static String quote(String path) {
+        return "'" + path.replace("'", "'\\''") + "'";
+    }
+}
@@ -0,0 +1,853 @@
+package com.company;
+
+import com.jcraft.jsch.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves batches of files concurrently over channels leased from a channel pool.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class TransferEngine {
+    public final static int DEFAULT_WORKERS = 4;
+    public final static int MAX_WORKERS = 32;
+    public final static int LISTERS = 2;
+    public final static int QUEUE_CAPACITY = 256;
+    private final static Job END = new Job(null, null, false, 0);
+
+    private final ChannelPool pool;
+    private final int workers;
+    private TransferMetrics metrics = null;
+    private int bufferSize = ThroughputProfile.DEFAULT_BUFFER_SIZE;
+
+
+    /**
+     * One file to move.
+     */
+    static class Job {
+        private final String source;
+        private final String destination;
+        private final boolean upload;
+        private final long size;
+        private final long mtime;
+
+        Job(String source, String destination, boolean upload, long size) {
+            this(source, destination, upload, size, -1);
+        }
+
+        /**
+         * @param mtime modification time in seconds to give the copy, -1 to leave it as written
+         */
+        Job(String source, String destination, boolean upload, long size, long mtime) {
+            this.source = source;
+            this.destination = destination;
+            this.upload = upload;
+            this.size = size;
+            this.mtime = mtime;
+        }
+    }
+
+
+    /**
+     * Constructor that sets the channel pool and the number of workers.
+     * @param pool pool to lease channels from
+     * @param workers number of channels to transfer over, capped by the pool size
+     */
+    public TransferEngine(ChannelPool pool, int workers) {
+        this.pool = pool;
+        this.workers = Math.max(1, Math.min(Math.min(workers, MAX_WORKERS), pool.getMaxSize()));
+    }
+
+
+    /**
+     * Counts the bytes and files moved in transfer metrics.
+     * @param metrics metrics to update, null to stop counting
+     */
+    public void setMetrics(TransferMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+
+    /**
+     * Sets how many bytes each download reads from its channel at once.
+     * @param bufferSize buffer size in bytes
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+    }
+
+
+    /**
+     * Creates the progress monitor for one transfer.
+     * @param upload true for an upload, false for a download
+     * @return a monitor that counts bytes, null if there are no metrics
+     */
+    private SftpProgressMonitor monitor(boolean upload) {
+        return this.metrics == null ? null : this.metrics.monitor(upload, null, 0);
+    }
+
+
+    /**
+     * Downloads remote files to local files, creating missing local directories.
+     * A failed file is recorded in the report and does not stop the batch. Files that would be written to
+     * the same local path are reported as failures after the first one instead of being written concurrently.
+     * @param remoteFiles absolute remote paths to download
+     * @param localFiles absolute local path of each remote file
+     * @return the outcome of every file
+     */
+    public TransferReport downloadAll(List<String> remoteFiles, List<String> localFiles) {
+        TransferReport report = new TransferReport();
+        Queue<Job> jobs = new ConcurrentLinkedQueue<>();
+        Set<Path> destinations = new HashSet<>();
+        for (int i = 0; i < remoteFiles.size(); ++i) {
+            String destination = localFiles.get(i);
+            Path local = Paths.get(destination).toAbsolutePath().normalize();
+            if (!destinations.add(local)) {
+                report.add(TransferResult.failure(remoteFiles.get(i), destination, "Duplicate Destination"));
+                continue;
+            }
+            Path parent = local.getParent();
+            if (parent != null) {
+                parent.toFile().mkdirs();
+            }
+            jobs.add(new Job(remoteFiles.get(i), destination, false, 0));
+        }
+        run(jobs, report);
+        return report;
+    }
+
+
+    /**
+     * Uploads a local directory tree below a remote directory.
+     * Remote directories are created in one pass first, skipping those the attribute cache knows exist.
+     * Files are then uploaded concurrently, largest first, so a big file doesn't start last and hold up the batch.
+     * Symbolic links and unreadable entries are skipped and reported as failures.
+     * @param localRoot local directory to upload
+     * @param remoteRoot absolute remote path the directory is uploaded as
+     * @param attributeCache cache of known remote paths, may be null
+     * @return the outcome of every file and skipped entry
+     */
+    public TransferReport uploadTree(String localRoot, String remoteRoot, RemoteAttributeCache attributeCache) {
+        TransferReport report = new TransferReport();
+        Path root = Paths.get(localRoot);
+        List<String> directories = new ArrayList<>();
+        List<Job> files = new ArrayList<>();
+
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    directories.add(remotePath(remoteRoot, root.relativize(dir)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String destination = remotePath(remoteRoot, root.relativize(file));
+                    if (attrs.isSymbolicLink()) {
+                        report.add(TransferResult.failure(file.toString(), destination, "Skipped Symbolic Link"));
+                    }
+                    else if (attrs.isRegularFile()) {
+                        files.add(new Job(file.toString(), destination, true, attrs.size()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    String reason = e instanceof AccessDeniedException ? "Permission Denied" : e.toString();
+                    report.add(TransferResult.failure(file.toString(),
+                            remotePath(remoteRoot, root.relativize(file)), "Skipped: " + reason));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException e) {
+            report.add(TransferResult.failure(localRoot, remoteRoot, e.getMessage()));
+            report.finish();
+            return report;
+        }
+
+        makeDirectories(directories, attributeCache, report);
+
+        files.sort(Comparator.comparingLong((Job job) -> job.size).reversed());
+        run(new ConcurrentLinkedQueue<>(files), report);
+        return report;
+    }
+
+
+    /**
+     * Downloads a remote directory tree below a local directory.
+     * Directories are listed on several channels while the files found are downloaded, so transfers start
+     * before the walk finishes. Files and the directories shared between listers pass through bounded queues,
+     * and a lister that can't share a directory walks it itself, depth first, taking at most QUEUE_CAPACITY
+     * subdirectories of a directory per listing. Only failures are kept in the report, so memory grows with
+     * the depth of the tree but not with its width or size. Symbolic links are skipped and reported as failures.
+     * @param remoteRoot absolute remote directory to download
+     * @param localRoot local path the directory is downloaded as
+     * @return the failures and totals of the download
+     */
+    public TransferReport downloadTree(String remoteRoot, String localRoot) {
+        TransferReport report = new TransferReport(false);
+        BlockingQueue<Cursor> directories = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<Job> files = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicInteger pending = new AtomicInteger(1);
+        directories.add(new Cursor(remoteRoot, localRoot, 0));
+
+        //Listers block on a full queue while holding a channel, so leave one free for the downloads.
+        int listers = Math.max(1, Math.min(LISTERS, this.pool.getMaxSize() - 1));
+        boolean streaming = this.pool.getMaxSize() > listers;
+
+        ExecutorService executor = Executors.newFixedThreadPool(listers + this.workers);
+        List<Future<?>> listing = new ArrayList<>();
+        List<Future<?>> downloading = new ArrayList<>();
+        for (int i = 0; i < listers; ++i) {
+            listing.add(executor.submit(() -> list(directories, pending, files, report, streaming)));
+        }
+        for (int i = 0; i < this.workers; ++i) {
+            downloading.add(executor.submit(() -> drain(files, report)));
+        }
+        await(listing);
+        endQueue(files);
+        await(downloading);
+        executor.shutdownNow();
+        report.finish();
+        return report;
+    }
+
+
+    /**
+     * Downloads the remote files matching glob patterns into a local directory.
+     * The * and ? wildcards may appear in directory components too, so one component can pick directories
+     * such as 2026-10-* and the last the files in them. Files keep their path below the fixed part of the pattern.
+     * Every directory is read with ChannelSftp.ls and a selector, so matching files are queued for download
+     * while its listing is still arriving instead of after the whole directory has been read and filtered.
+     * A pattern without wildcards matches the one file it names.
+     * @param patterns absolute remote patterns
+     * @param localDirectory directory to write the files into
+     * @return the failures and totals of the download, with a failure for every pattern that matched nothing
+     */
+    public TransferReport downloadMatching(List<String> patterns, String localDirectory) {
+        TransferReport report = new TransferReport(false);
+        BlockingQueue<Job> files = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        //The lister blocks on a full queue while holding a channel, so it only streams if one is left for downloads.
+        boolean streaming = this.pool.getMaxSize() > 1;
+
+        ExecutorService executor = Executors.newFixedThreadPool(1 + this.workers);
+        List<Future<?>> downloading = new ArrayList<>();
+        for (int i = 0; i < this.workers; ++i) {
+            downloading.add(executor.submit(() -> drain(files, report)));
+        }
+        List<Future<?>> listing = new ArrayList<>();
+        listing.add(executor.submit(() -> {
+            for (String pattern : patterns) {
+                AtomicInteger matched = new AtomicInteger();
+                try {
+                    match(pattern, localDirectory, files, report, streaming, matched);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (matched.get() == 0) {
+                    report.add(TransferResult.failure(pattern, localDirectory, "No Match"));
+                }
+            }
+        }));
+        await(listing);
+        endQueue(files);
+        await(downloading);
+        executor.shutdownNow();
+        report.finish();
+        return report;
+    }
+
+
+    /**
+     * Determines whether a path component holds a wildcard.
+     * @param component one component of a remote path
+     * @return true if it contains * or ?
+     */
+    static boolean isPattern(String component) {
+        return component.indexOf('*') >= 0 || component.indexOf('?') >= 0;
+    }
+
+
+    /**
+     * Queues the files matching one pattern.
+     * @param pattern absolute remote pattern
+     * @param localDirectory directory the matches are written below
+     * @param files queue for the files found
+     * @param report where to record skipped entries and listing errors
+     * @param streaming true to hand files over while the listing is read
+     * @param matched count of matching entries, increased as they are found
+     */
+    private void match(String pattern, String localDirectory, BlockingQueue<Job> files, TransferReport report,
+                       boolean streaming, AtomicInteger matched) throws InterruptedException {
+        List<String> components = new ArrayList<>();
+        for (String component : pattern.split("/")) {
+            if (!component.isEmpty()) {
+                components.add(component);
+            }
+        }
+        if (components.isEmpty()) {
+            return;
+        }
+        String base = "/";
+        int first = 0;
+        while (first < components.size() - 1 && !isPattern(components.get(first))) {
+            base = child(base, components.get(first++));
+        }
+        matchBelow(base, localDirectory, components.subList(first, components.size()), files, report, streaming, matched);
+    }
+
+
+    /**
+     * Matches the remaining pattern components below a remote directory, expanding directory wildcards depth first.
+     * @param directory absolute remote directory the components apply to
+     * @param local local directory that corresponds to it
+     * @param components pattern components left, the last one naming files
+     * @param files queue for the files found
+     * @param report where to record skipped entries and listing errors
+     * @param streaming true to hand files over while the listing is read
+     * @param matched count of matching entries
+     */
+    private void matchBelow(String directory, String local, List<String> components, BlockingQueue<Job> files,
+                            TransferReport report, boolean streaming, AtomicInteger matched)
+            throws InterruptedException {
+        String component = components.get(0);
+        if (components.size() == 1) {
+            matchFiles(directory, local, component, files, report, streaming, matched);
+            return;
+        }
+        List<String> rest = components.subList(1, components.size());
+        if (!isPattern(component)) {
+            matchBelow(child(directory, component), local + "/" + component, rest, files, report, streaming, matched);
+            return;
+        }
+        List<String> names = new ArrayList<>();
+        try {
+            this.pool.execute(channel -> {
+                RemoteLister.list(channel, child(directory, component), entry -> {
+                    String name = entry.getFilename();
+                    if (entry.getAttrs().isDir() && !name.equals(".") && !name.equals("..")) {
+                        names.add(name);
+                    }
+                    return true;
+                });
+                return null;
+            });
+        }
+        catch (SftpException e) {
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                report.add(TransferResult.failure(directory, local, e.getMessage()));
+            }
+            return;
+        }
+        for (String name : names) {
+            matchBelow(child(directory, name), local + "/" + name, rest, files, report, streaming, matched);
+        }
+    }
+
+
+    /**
+     * Queues the files in one remote directory whose names match a pattern.
+     * The local directory is only created once something matches.
+     * @param directory absolute remote directory
+     * @param local local directory to download into
+     * @param pattern file name pattern
+     * @param files queue for the files found
+     * @param report where to record skipped entries and listing errors
+     * @param streaming true to hand files over while the listing is read
+     * @param matched count of matching entries
+     */
+    private void matchFiles(String directory, String local, String pattern, BlockingQueue<Job> files,
+                            TransferReport report, boolean streaming, AtomicInteger matched)
+            throws InterruptedException {
+        boolean literal = !isPattern(pattern);
+        File localDirectory = new File(local);
+        List<Job> held = new ArrayList<>();
+        try {
+            this.pool.execute(channel -> {
+                RemoteLister.list(channel, child(directory, pattern), entry -> {
+                    String name = entry.getFilename();
+                    SftpATTRS attrs = entry.getAttrs();
+                    //A name without wildcards that is a directory gets listed, so keep only the file it names.
+                    if (attrs.isDir() || (literal && !name.equals(pattern))) {
+                        return true;
+                    }
+                    matched.incrementAndGet();
+                    String source = child(directory, name);
+                    String destination = local + "/" + name;
+                    if (attrs.isLink()) {
+                        report.add(TransferResult.failure(source, destination, "Skipped Symbolic Link"));
+                        return true;
+                    }
+                    if (!localDirectory.isDirectory() && !localDirectory.mkdirs()) {
+                        report.add(TransferResult.failure(directory, local, "Unable to Create Directory"));
+                        return false;
+                    }
+                    Job job = new Job(source, destination, false, attrs.getSize());
+                    if (!streaming) {
+                        held.add(job);
+                        return true;
+                    }
+                    try {
+                        files.put(job);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                    return true;
+                });
+                return null;
+            });
+        }
+        catch (SftpException e) {
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                report.add(TransferResult.failure(directory, local, e.getMessage()));
+            }
+        }
+        for (Job job : held) {
+            files.put(job);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+
+    /**
+     * Joins a remote directory and a name.
+     * @param directory absolute remote directory
+     * @param name name below it
+     * @return the absolute remote path
+     */
+    private static String child(String directory, String name) {
+        return directory.endsWith("/") ? directory + name : directory + "/" + name;
+    }
+
+
+    /**
+     * Puts an end marker on the file queue for every download worker.
+     * @param files queue the workers drain
+     */
+    private void endQueue(BlockingQueue<Job> files) {
+        for (int i = 0; i < this.workers; ++i) {
+            try {
+                files.put(END);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * A remote directory still to be listed, and how many of its subdirectories were already handed out.
+     * A directory with more subdirectories than fit in one pass is listed again from where the last pass stopped.
+     */
+    private static class Cursor {
+        private final String source;
+        private final String destination;
+        private final int skip;
+
+        private Cursor(String source, String destination, int skip) {
+            this.source = source;
+            this.destination = destination;
+            this.skip = skip;
+        }
+    }
+
+
+    /**
+     * Lists directories until every directory has been listed. Directories this lister couldn't share
+     * are kept on its own stack and walked depth first before it takes shared ones again.
+     * @param directories bounded queue of directories shared between listers
+     * @param pending directories queued or being listed
+     * @param files queue the files found are handed to
+     * @param report where to record skipped entries
+     * @param streaming true to hand files over while the listing is read, false to wait for the listing to finish
+     */
+    private void list(BlockingQueue<Cursor> directories, AtomicInteger pending, BlockingQueue<Job> files,
+                      TransferReport report, boolean streaming) {
+        Deque<Cursor> own = new ArrayDeque<>();
+        try {
+            while (pending.get() > 0) {
+                Cursor directory = own.isEmpty() ? directories.poll(100, TimeUnit.MILLISECONDS) : own.pop();
+                if (directory == null) {
+                    continue;
+                }
+                try {
+                    listDirectory(directory, directories, own, pending, files, report, streaming);
+                }
+                finally {
+                    pending.decrementAndGet();
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Lists one pass of a remote directory. The first pass creates the local copy and queues the files;
+     * every pass takes up to QUEUE_CAPACITY of the subdirectories not handed out yet, and leaves a cursor
+     * for the rest.
+     * @param directory remote directory, its local path and the subdirectories already handed out
+     * @param directories shared queue the subdirectories are offered to
+     * @param own this lister's stack, for subdirectories the shared queue has no room for
+     * @param pending directories queued or being listed
+     * @param files queue for the files found
+     * @param report where to record skipped entries
+     * @param streaming true to hand files over while the listing is read
+     */
+    private void listDirectory(Cursor directory, BlockingQueue<Cursor> directories, Deque<Cursor> own,
+                               AtomicInteger pending, BlockingQueue<Job> files, TransferReport report,
+                               boolean streaming) throws InterruptedException {
+        boolean first = directory.skip == 0;
+        File local = new File(directory.destination);
+        if (first && !local.isDirectory() && !local.mkdirs()) {
+            report.add(TransferResult.failure(directory.source, directory.destination, "Unable to Create Directory"));
+            return;
+        }
+
+        List<Job> held = new ArrayList<>();
+        List<Cursor> subdirectories = new ArrayList<>();
+        int[] seen = {0};
+        boolean[] more = {false};
+        try {
+            this.pool.execute(channel -> {
+                RemoteLister.list(channel, directory.source, entry -> {
+                    String name = entry.getFilename();
+                    if (name.equals(".") || name.equals("..")) {
+                        return true;
+                    }
+                    String source = directory.source.endsWith("/") ? directory.source + name : directory.source + "/" + name;
+                    String destination = directory.destination + "/" + name;
+                    SftpATTRS attrs = entry.getAttrs();
+                    if (attrs.isDir() && !attrs.isLink()) {
+                        if (seen[0]++ < directory.skip) {
+                            return true;
+                        }
+                        if (subdirectories.size() < QUEUE_CAPACITY) {
+                            subdirectories.add(new Cursor(source, destination, 0));
+                            return true;
+                        }
+                        more[0] = true;
+                        //Later passes only look for subdirectories, so this one is done.
+                        return first;
+                    }
+                    if (!first) {
+                        return true;
+                    }
+                    if (attrs.isLink()) {
+                        report.add(TransferResult.failure(source, destination, "Skipped Symbolic Link"));
+                    }
+                    else if (!streaming) {
+                        held.add(new Job(source, destination, false, attrs.getSize()));
+                    }
+                    else {
+                        try {
+                            files.put(new Job(source, destination, false, attrs.getSize()));
+                        }
+                        catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+                return null;
+            });
+        }
+        catch (SftpException e) {
+            report.add(TransferResult.failure(directory.source, directory.destination, e.getMessage()));
+        }
+        for (Job job : held) {
+            files.put(job);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+
+        //The rest of this directory comes after the subdirectories taken now, which are walked first.
+        if (more[0]) {
+            pending.incrementAndGet();
+            own.push(new Cursor(directory.source, directory.destination, directory.skip + subdirectories.size()));
+        }
+        for (Cursor subdirectory : subdirectories) {
+            pending.incrementAndGet();
+            if (!directories.offer(subdirectory)) {
+                own.push(subdirectory);
+            }
+        }
+    }
+
+
+    /**
+     * Downloads files off the queue until the end marker, leasing a channel for each file.
+     * @param files queue of files to download
+     * @param report where to record the results
+     */
+    private void drain(BlockingQueue<Job> files, TransferReport report) {
+        try {
+            Job job;
+            while ((job = files.take()) != END) {
+                Job file = job;
+                try {
+                    report.add(this.pool.execute(channel -> transfer(channel, file)));
+                }
+                catch (SftpException e) {
+                    report.add(TransferResult.failure(file.source, file.destination, e.getMessage()));
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Waits for every task to finish.
+     * @param futures tasks to wait for
+     */
+    private static void await(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            }
+            catch (Exception e) {
+                //Task failures are recorded per file.
+            }
+        }
+    }
+
+
+    /**
+     * Moves a prepared list of files concurrently, largest first.
+     * @param jobs files to move
+     * @return the outcome of every file
+     */
+    TransferReport transferAll(List<Job> jobs) {
+        List<Job> sorted = new ArrayList<>(jobs);
+        sorted.sort(Comparator.comparingLong((Job job) -> job.size).reversed());
+        TransferReport report = new TransferReport();
+        run(new ConcurrentLinkedQueue<>(sorted), report);
+        return report;
+    }
+
+
+    /**
+     * Creates remote directories over one leased channel, parents before children.
+     * Directories that already exist are left alone.
+     * @param directories absolute remote directories in walk order
+     * @param attributeCache cache of known remote paths, may be null
+     * @param report where to record directories that could not be created
+     */
+    void makeDirectories(List<String> directories, RemoteAttributeCache attributeCache, TransferReport report) {
+        List<String> missing = new ArrayList<>();
+        for (String directory : directories) {
+            if (attributeCache == null || !Boolean.TRUE.equals(attributeCache.isDirectory(directory))) {
+                missing.add(directory);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        try {
+            this.pool.execute(channel -> {
+                for (String directory : missing) {
+                    try {
+                        channel.mkdir(directory);
+                    }
+                    catch (SftpException e) {
+                        try {
+                            if (!channel.stat(directory).isDir()) {
+                                report.add(TransferResult.failure(directory, directory, "Not a Directory"));
+                                continue;
+                            }
+                        }
+                        catch (SftpException missingDir) {
+                            report.add(TransferResult.failure(directory, directory, e.getMessage()));
+                            continue;
+                        }
+                    }
+                    if (attributeCache != null) {
+                        attributeCache.putExists(directory, true);
+                    }
+                }
+                return null;
+            });
+        }
+        catch (SftpException e) {
+            report.add(TransferResult.failure(missing.get(0), missing.get(0), e.getMessage()));
+        }
+    }
+
+
+    /**
+     * Runs the queued jobs over the worker channels.
+     * @param jobs files to move
+     * @param report where to record the outcome of every job
+     */
+    private void run(Queue<Job> jobs, TransferReport report) {
+        int threads = Math.min(this.workers, jobs.size());
+        if (threads == 0) {
+            report.finish();
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; ++i) {
+            futures.add(executor.submit(() -> work(jobs, report)));
+        }
+        await(futures);
+        executor.shutdown();
+
+        //Anything left over could not get a channel at all.
+        Job job;
+        while ((job = jobs.poll()) != null) {
+            report.add(TransferResult.failure(job.source, job.destination, "Unable to Open Channel"));
+        }
+        report.finish();
+    }
+
+
+    /**
+     * Takes jobs off the queue until it is empty, keeping one leased channel for the whole run.
+     * @param jobs shared job queue
+     * @param report where to record the results
+     */
+    private void work(Queue<Job> jobs, TransferReport report) {
+        ChannelSftp channel;
+        try {
+            channel = this.pool.lease();
+        }
+        catch (JSchException e) {
+            return;
+        }
+        try {
+            Job job;
+            while ((job = jobs.poll()) != null) {
+                if (!channel.isConnected()) {
+                    this.pool.invalidate(channel);
+                    channel = null;
+                    try {
+                        channel = this.pool.lease();
+                    }
+                    catch (JSchException e) {
+                        report.add(TransferResult.failure(job.source, job.destination, e.getMessage()));
+                        return;
+                    }
+                }
+                report.add(transfer(channel, job));
+            }
+        }
+        finally {
+            if (channel != null) {
+                this.pool.release(channel);
+            }
+        }
+    }
+
+
+    /**
+     * Moves one file. The local side goes through LocalFileIO, so JSch reads and writes straight
+     * from mapped regions or pooled direct buffers.
+     * @param channel channel to transfer over
+     * @param job file to move
+     * @return the outcome
+     */
+    private TransferResult transfer(ChannelSftp channel, Job job) {
+        long start = System.currentTimeMillis();
+        long bytes;
+        try {
+            if (job.upload) {
+                try (FileChannel file = FileChannel.open(Paths.get(job.source), StandardOpenOption.READ);
+                     InputStream in = LocalFileIO.newInputStream(file, 0, Long.MAX_VALUE)) {
+                    channel.put(in, job.destination, monitor(true), ChannelSftp.OVERWRITE);
+                }
+                bytes = job.size;
+                if (job.mtime >= 0) {
+                    channel.setMtime(job.destination, (int)job.mtime);
+                }
+            }
+            else {
+                File local = new File(job.destination);
+                byte[] buffer = LocalFileIO.borrowArray(this.bufferSize);
+                //The remote file is opened first, so a missing source leaves the local side untouched.
+                try (InputStream in = channel.get(job.source, monitor(false));
+                     FileChannel file = FileChannel.open(local.toPath(), StandardOpenOption.CREATE,
+                             StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                     OutputStream out = LocalFileIO.newOutputStream(file, 0)) {
+                    int read;
+                    while ((read = in.read(buffer)) > 0) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+                finally {
+                    LocalFileIO.release(buffer);
+                }
+                bytes = local.length();
+                if (job.mtime >= 0) {
+                    local.setLastModified(job.mtime * 1000);
+                }
+            }
+        }
+        catch (SftpException | IOException e) {
+            return recorded(job, TransferResult.failure(job.source, job.destination, e.getMessage()));
+        }
+        return recorded(job, TransferResult.success(job.source, job.destination, bytes, System.currentTimeMillis() - start));
+    }
+
+
+    /**
+     * Records a finished transfer in the metrics.
+     * @param job file that was moved
+     * @param result outcome of the transfer
+     * @return the outcome
+     */
+    private TransferResult recorded(Job job, TransferResult result) {
+        if (this.metrics != null) {
+            this.metrics.recordTransfer(job.upload, result);
+        }
+        return result;
+    }
+
+
+    /**
+     * Maps a path relative to the local root onto the remote root.
+     * @param remoteRoot absolute remote path of the local root
+     * @param relative path below the local root
+     * @return the absolute remote path
+     */
+    private static String remotePath(String remoteRoot, Path relative) {
+        String suffix = relative.toString().replace(File.separatorChar, '/');
+        return suffix.isEmpty() ? remoteRoot : remoteRoot + "/" + suffix;
+    }
+}
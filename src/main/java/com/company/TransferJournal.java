@@ -0,0 +1,345 @@
+package com.company;
+
+import com.jcraft.jsch.SftpProgressMonitor;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the transfers that are in flight so they can be resumed after a dropped connection.
+ * Each line of the journal file holds one tab separated entry. Several journals, in this process or others,
+ * may share one file: each save takes a lock, reads the file again and only replaces the entries this
+ * journal began, updated or completed.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class TransferJournal {
+    public final static String GET = "GET";
+    public final static String PUT = "PUT";
+    private final static long SAVE_INTERVAL = 1024 * 1024;
+
+    private final static Map<Path, Object> fileLocks = new ConcurrentHashMap<>();
+
+    private final String fileName;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Set<String> changed = new HashSet<>();
+    private final Set<String> removed = new HashSet<>();
+
+
+    /**
+     * One transfer in flight.
+     */
+    public static class Entry {
+        private final String direction;
+        private final String host;
+        private final String source;
+        private final String destination;
+        private final long size;
+        private final long mtime;
+        private volatile long confirmed;
+        private long saved;
+
+
+        /**
+         * Constructor that sets every field of the entry.
+         * @param direction GET or PUT
+         * @param host user@host:port the transfer belongs to
+         * @param source absolute source path
+         * @param destination absolute destination path
+         * @param size source size when the transfer started
+         * @param mtime source modification time in seconds when the transfer started
+         * @param confirmed bytes known to be written at the destination
+         */
+        public Entry(String direction, String host, String source, String destination,
+                     long size, long mtime, long confirmed) {
+            this.direction = direction;
+            this.host = host;
+            this.source = source;
+            this.destination = destination;
+            this.size = size;
+            this.mtime = mtime;
+            this.confirmed = confirmed;
+            this.saved = confirmed;
+        }
+
+
+        public String getDirection() {
+            return direction;
+        }
+
+
+        public String getHost() {
+            return host;
+        }
+
+
+        public String getSource() {
+            return source;
+        }
+
+
+        public String getDestination() {
+            return destination;
+        }
+
+
+        public long getSize() {
+            return size;
+        }
+
+
+        public long getMtime() {
+            return mtime;
+        }
+
+
+        public long getConfirmed() {
+            return confirmed;
+        }
+
+
+        /**
+         * Determines whether the source still looks like the one the transfer started from.
+         * @param size current source size
+         * @param mtime current source modification time in seconds
+         * @return true if the transfer can resume, false if it must restart.
+         */
+        public boolean matches(long size, long mtime) {
+            return this.size == size && this.mtime == mtime;
+        }
+
+
+        private String key() {
+            return direction + "\t" + host + "\t" + source + "\t" + destination;
+        }
+
+
+        private String toLine() {
+            return key() + "\t" + size + "\t" + mtime + "\t" + confirmed;
+        }
+
+
+        private static Entry fromLine(String line) {
+            String [] fields = line.split("\t");
+            if (fields.length != 7) {
+                return null;
+            }
+            try {
+                return new Entry(fields[0], fields[1], fields[2], fields[3],
+                        Long.parseLong(fields[4]), Long.parseLong(fields[5]), Long.parseLong(fields[6]));
+            }
+            catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+
+    /**
+     * Constructor that loads any entries left in the journal file.
+     * @param fileName where the journal is kept
+     */
+    public TransferJournal(String fileName) {
+        this.fileName = fileName;
+        this.entries.putAll(read(Paths.get(fileName)));
+    }
+
+
+    /**
+     * Reads the entries in a journal file.
+     * @param path journal file
+     * @return the entries by key, empty if there is no readable file
+     */
+    private static Map<String, Entry> read(Path path) {
+        Map<String, Entry> read = new LinkedHashMap<>();
+        if (!Files.isRegularFile(path)) {
+            return read;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Entry entry = Entry.fromLine(line);
+                if (entry != null) {
+                    read.put(entry.key(), entry);
+                }
+            }
+        }
+        catch (IOException e) {
+            //An unreadable journal only means nothing can be resumed.
+        }
+        return read;
+    }
+
+
+    /**
+     * Gets the default journal location next to the default known hosts file.
+     * @return user.home/.ssh/sftp_journal
+     */
+    public static String defaultFile() {
+        return System.getProperty("user.home") + "/.ssh/sftp_journal";
+    }
+
+
+    /**
+     * Records a transfer that is about to start, replacing any older entry for the same files.
+     * @param entry transfer to record
+     */
+    public synchronized void begin(Entry entry) {
+        entries.put(entry.key(), entry);
+        changed.add(entry.key());
+        removed.remove(entry.key());
+        save();
+    }
+
+
+    /**
+     * Records how many bytes have reached the destination.
+     * The journal file is only rewritten every so often to keep the overhead low.
+     * @param entry transfer in flight
+     * @param confirmed bytes written at the destination
+     */
+    public synchronized void update(Entry entry, long confirmed) {
+        entry.confirmed = confirmed;
+        changed.add(entry.key());
+        if (confirmed - entry.saved >= SAVE_INTERVAL) {
+            save();
+        }
+    }
+
+
+    /**
+     * Removes a finished transfer.
+     * @param entry transfer that completed
+     */
+    public synchronized void complete(Entry entry) {
+        entries.remove(entry.key());
+        changed.remove(entry.key());
+        removed.add(entry.key());
+        save();
+    }
+
+
+    /**
+     * Writes the current progress of every entry, e.g. when a transfer fails.
+     */
+    public synchronized void checkpoint() {
+        save();
+    }
+
+
+    /**
+     * Gets the transfers left unfinished for a host, including those other journals on the file recorded.
+     * @param host user@host:port to look for
+     * @return the pending entries
+     */
+    public synchronized List<Entry> pending(String host) {
+        save();
+        List<Entry> pending = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.host.equals(host)) {
+                pending.add(entry);
+            }
+        }
+        return pending;
+    }
+
+
+    /**
+     * Creates a progress monitor that keeps an entry's confirmed bytes current.
+     * Counts start from zero, or from the skipped bytes when JSch resumes.
+     * @param entry transfer in flight
+     * @return the monitor
+     */
+    public SftpProgressMonitor monitor(Entry entry) {
+        return new SftpProgressMonitor() {
+            private long total = 0;
+
+            @Override
+            public void init(int op, String src, String dest, long max) {
+                total = 0;
+            }
+
+            @Override
+            public boolean count(long count) {
+                total += count;
+                update(entry, total);
+                return true;
+            }
+
+            @Override
+            public void end() {
+            }
+        };
+    }
+
+
+    /**
+     * Merges this journal's changes into the journal file and replaces it in one step. The file is read
+     * again under a lock, so entries other journals wrote since are kept and become visible here.
+     */
+    private void save() {
+        Path path = Paths.get(this.fileName).toAbsolutePath().normalize();
+        if (changed.isEmpty() && removed.isEmpty()) {
+            //Nothing to merge; files are only ever replaced whole, so reading needs no lock.
+            entries.clear();
+            entries.putAll(read(path));
+            return;
+        }
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            //File locks are held by the whole process, so journals in this one take turns first.
+            synchronized (fileLocks.computeIfAbsent(path, p -> new Object())) {
+                try (FileChannel lockChannel = FileChannel.open(Paths.get(path + ".lock"),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock ignored = lockChannel.lock()) {
+                    Map<String, Entry> merged = read(path);
+                    merged.keySet().removeAll(removed);
+                    for (String key : changed) {
+                        merged.put(key, entries.get(key));
+                    }
+                    write(path, merged.values());
+                    entries.clear();
+                    entries.putAll(merged);
+                    removed.clear();
+                }
+            }
+        }
+        catch (IOException e) {
+            //The transfer itself goes on, it just can't be resumed from this point.
+        }
+    }
+
+
+    /**
+     * Writes entries to a temporary file of this process and moves it over the journal file.
+     * @param path journal file
+     * @param toWrite entries to write
+     */
+    private static void write(Path path, Collection<Entry> toWrite) throws IOException {
+        Path temp = Files.createTempFile(path.getParent(), path.getFileName() + ".", ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Entry entry : toWrite) {
+                    writer.write(entry.toLine());
+                    writer.newLine();
+                    entry.saved = entry.confirmed;
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.company;
+
+import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
+
+import javax.management.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts bytes, files and operation latencies of one connection and publishes them through JMX.
+ * Transfers are counted through SftpProgressMonitor, and remote operations are timed into latency histograms.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class TransferMetrics implements TransferMetricsMXBean {
+    public final static String DOMAIN = "com.company";
+    public final static int RATE_WINDOW_SECONDS = 10;
+    private final static long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+    private final static AtomicInteger instances = new AtomicInteger();
+
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private final AtomicLong bytesUploaded = new AtomicLong();
+    private final AtomicLong filesDownloaded = new AtomicLong();
+    private final AtomicLong filesUploaded = new AtomicLong();
+    private final AtomicLong failedTransfers = new AtomicLong();
+    private final Rate downloadRate = new Rate();
+    private final Rate uploadRate = new Rate();
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private final int id = instances.incrementAndGet();
+
+    private volatile String throughputProfile = "";
+    private ObjectName name = null;
+    private ScheduledExecutorService dumper = null;
+
+
+    /**
+     * A remote call that can be timed.
+     */
+    public interface Timed<T> {
+        T run() throws SftpException;
+    }
+
+
+    /**
+     * Count, errors and latency histogram of one operation.
+     */
+    private static class Operation {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+
+        private void record(long nanos, boolean failed) {
+            count.incrementAndGet();
+            if (failed) {
+                errors.incrementAndGet();
+            }
+            totalNanos.addAndGet(nanos);
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+                ++bucket;
+            }
+            buckets.incrementAndGet(bucket);
+        }
+
+        private long[] histogram() {
+            long[] histogram = new long[buckets.length()];
+            for (int i = 0; i < histogram.length; ++i) {
+                histogram[i] = buckets.get(i);
+            }
+            return histogram;
+        }
+    }
+
+
+    /**
+     * Bytes per second over the last RATE_WINDOW_SECONDS, kept in one slot per second.
+     */
+    private static class Rate {
+        private final long[] bytes = new long[RATE_WINDOW_SECONDS];
+        private final long[] seconds = new long[RATE_WINDOW_SECONDS];
+
+        private synchronized void add(long count) {
+            long now = System.currentTimeMillis() / 1000;
+            int slot = (int)(now % RATE_WINDOW_SECONDS);
+            if (seconds[slot] != now) {
+                seconds[slot] = now;
+                bytes[slot] = 0;
+            }
+            bytes[slot] += count;
+        }
+
+        private synchronized double perSecond() {
+            long now = System.currentTimeMillis() / 1000;
+            long total = 0;
+            for (int i = 0; i < RATE_WINDOW_SECONDS; ++i) {
+                if (now - seconds[i] < RATE_WINDOW_SECONDS) {
+                    total += bytes[i];
+                }
+            }
+            return (double)total / RATE_WINDOW_SECONDS;
+        }
+
+        private synchronized void clear() {
+            Arrays.fill(bytes, 0);
+            Arrays.fill(seconds, 0);
+        }
+    }
+
+
+    /**
+     * Publishes the metrics with the platform MBean server, replacing an earlier registration.
+     * @param connection user@host:port the metrics belong to
+     * @throws JMException If the MBean can't be registered.
+     */
+    public synchronized void register(String connection) throws JMException {
+        unregister();
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=TransferMetrics,connection="
+                + ObjectName.quote(connection) + ",id=" + id);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.name = objectName;
+    }
+
+
+    /**
+     * Removes the metrics from the platform MBean server.
+     */
+    public synchronized void unregister() {
+        if (this.name == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+        }
+        catch (JMException e) {
+            //Already gone.
+        }
+        this.name = null;
+    }
+
+
+    /**
+     * Gets the name the metrics are published under.
+     * @return the object name, null if not registered
+     */
+    public synchronized ObjectName getObjectName() {
+        return name;
+    }
+
+
+    /**
+     * Creates a progress monitor that counts the bytes of one transfer.
+     * @param upload true for an upload, false for a download
+     * @param next monitor to pass every call on to, may be null
+     * @param skip bytes JSch reports up front for a resumed download, which are not counted
+     * @return the monitor
+     */
+    public SftpProgressMonitor monitor(boolean upload, SftpProgressMonitor next, long skip) {
+        return new SftpProgressMonitor() {
+            private long skipped = 0;
+
+            @Override
+            public void init(int op, String src, String dest, long max) {
+                if (next != null) {
+                    next.init(op, src, dest, max);
+                }
+            }
+
+            @Override
+            public boolean count(long count) {
+                long counted = count;
+                if (skipped < skip) {
+                    long ignore = Math.min(skip - skipped, count);
+                    skipped += ignore;
+                    counted -= ignore;
+                }
+                addBytes(upload, counted);
+                return next == null || next.count(count);
+            }
+
+            @Override
+            public void end() {
+                if (next != null) {
+                    next.end();
+                }
+            }
+        };
+    }
+
+
+    /**
+     * Counts bytes moved outside a progress monitor.
+     * @param upload true for upload bytes, false for download bytes
+     * @param count number of bytes
+     */
+    public void addBytes(boolean upload, long count) {
+        if (count <= 0) {
+            return;
+        }
+        if (upload) {
+            bytesUploaded.addAndGet(count);
+            uploadRate.add(count);
+        }
+        else {
+            bytesDownloaded.addAndGet(count);
+            downloadRate.add(count);
+        }
+    }
+
+
+    /**
+     * Records a finished transfer and its latency as a "get" or "put" operation.
+     * @param upload true for an upload, false for a download
+     * @param success true if the file arrived
+     * @param elapsedMillis time the transfer took
+     */
+    public void recordTransfer(boolean upload, boolean success, long elapsedMillis) {
+        if (!success) {
+            failedTransfers.incrementAndGet();
+        }
+        else if (upload) {
+            filesUploaded.incrementAndGet();
+        }
+        else {
+            filesDownloaded.incrementAndGet();
+        }
+        record(upload ? "put" : "get", TimeUnit.MILLISECONDS.toNanos(elapsedMillis), !success);
+    }
+
+
+    /**
+     * Records a finished transfer.
+     * @param upload true for an upload, false for a download
+     * @param result outcome of the transfer
+     */
+    public void recordTransfer(boolean upload, TransferResult result) {
+        recordTransfer(upload, result.isSuccess(), result.getElapsedMillis());
+    }
+
+
+    /**
+     * Runs a remote operation and records its latency, counting it as an error if it throws.
+     * @param operation operation name, such as "ls" or "rm"
+     * @param call the remote call
+     * @return what the call returns
+     * @throws SftpException If the call fails.
+     */
+    public <T> T time(String operation, Timed<T> call) throws SftpException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = call.run();
+            failed = false;
+            return result;
+        }
+        finally {
+            record(operation, System.nanoTime() - start, failed);
+        }
+    }
+
+
+    /**
+     * Records one call of an operation.
+     * @param operation operation name
+     * @param nanos time the call took
+     * @param failed true if the call failed
+     */
+    public void record(String operation, long nanos, boolean failed) {
+        operations.computeIfAbsent(operation, k -> new Operation()).record(nanos, failed);
+    }
+
+
+    /**
+     * Appends a dump of the metrics to a text file at a fixed rate, replacing an earlier schedule.
+     * @param fileName file to append to
+     * @param periodMillis time between dumps, 0 to stop dumping
+     */
+    public synchronized void setDump(String fileName, long periodMillis) {
+        if (this.dumper != null) {
+            this.dumper.shutdownNow();
+            this.dumper = null;
+        }
+        if (fileName == null || periodMillis <= 0) {
+            return;
+        }
+        this.dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transfer-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dumper.scheduleAtFixedRate(() -> dumpTo(fileName), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Appends one dump to a text file.
+     * @param fileName file to append to
+     * @return true if written, false otherwise.
+     */
+    public boolean dumpTo(String fileName) {
+        String text = "# " + new Date() + "\n" + dump() + "\n";
+        try {
+            Files.write(Paths.get(fileName), text.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return true;
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+
+    @Override
+    public long getBytesDownloaded() {
+        return bytesDownloaded.get();
+    }
+
+
+    @Override
+    public long getBytesUploaded() {
+        return bytesUploaded.get();
+    }
+
+
+    @Override
+    public long getFilesDownloaded() {
+        return filesDownloaded.get();
+    }
+
+
+    @Override
+    public long getFilesUploaded() {
+        return filesUploaded.get();
+    }
+
+
+    @Override
+    public long getFailedTransfers() {
+        return failedTransfers.get();
+    }
+
+
+    @Override
+    public double getDownloadThroughput() {
+        return downloadRate.perSecond();
+    }
+
+
+    @Override
+    public double getUploadThroughput() {
+        return uploadRate.perSecond();
+    }
+
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        operations.forEach((operation, stats) -> counts.put(operation, stats.count.get()));
+        return counts;
+    }
+
+
+    @Override
+    public Map<String, Long> getOperationErrors() {
+        Map<String, Long> errors = new TreeMap<>();
+        operations.forEach((operation, stats) -> errors.put(operation, stats.errors.get()));
+        return errors;
+    }
+
+
+    @Override
+    public Map<String, Double> getMeanLatencyMillis() {
+        Map<String, Double> means = new TreeMap<>();
+        operations.forEach((operation, stats) -> {
+            long count = stats.count.get();
+            means.put(operation, count == 0 ? 0 : stats.totalNanos.get() / 1e6 / count);
+        });
+        return means;
+    }
+
+
+    @Override
+    public Map<String, long[]> getLatencyHistograms() {
+        Map<String, long[]> histograms = new TreeMap<>();
+        operations.forEach((operation, stats) -> histograms.put(operation, stats.histogram()));
+        return histograms;
+    }
+
+
+    @Override
+    public long[] getLatencyBucketBoundsMillis() {
+        return BUCKET_BOUNDS_MILLIS.clone();
+    }
+
+
+    @Override
+    public String dump() {
+        StringBuilder s = new StringBuilder();
+        s.append(String.format("downloaded %d files, %d bytes, %.1f KB/s\n",
+                getFilesDownloaded(), getBytesDownloaded(), getDownloadThroughput() / 1024));
+        s.append(String.format("uploaded %d files, %d bytes, %.1f KB/s\n",
+                getFilesUploaded(), getBytesUploaded(), getUploadThroughput() / 1024));
+        s.append(String.format("failed transfers %d\n", getFailedTransfers()));
+        if (!throughputProfile.isEmpty()) {
+            s.append("profile ").append(throughputProfile).append('\n');
+        }
+
+        StringBuilder header = new StringBuilder();
+        for (long bound : BUCKET_BOUNDS_MILLIS) {
+            header.append(" <=").append(bound);
+        }
+        header.append(" >").append(BUCKET_BOUNDS_MILLIS[BUCKET_BOUNDS_MILLIS.length - 1]);
+        s.append("latency ms:").append(header).append('\n');
+
+        Map<String, Double> means = getMeanLatencyMillis();
+        for (Map.Entry<String, long[]> histogram : getLatencyHistograms().entrySet()) {
+            String operation = histogram.getKey();
+            Operation stats = operations.get(operation);
+            s.append(String.format("%s count=%d errors=%d mean=%.2fms histogram=",
+                    operation, stats.count.get(), stats.errors.get(), means.get(operation)));
+            long[] buckets = histogram.getValue();
+            for (int i = 0; i < buckets.length; ++i) {
+                s.append(i == 0 ? "" : ",").append(buckets[i]);
+            }
+            s.append('\n');
+        }
+        return s.toString();
+    }
+
+
+    @Override
+    public String getThroughputProfile() {
+        return throughputProfile;
+    }
+
+
+    /**
+     * Records the throughput profile in use, so runs with different settings can be told apart.
+     * @param profile the profile
+     */
+    public void setThroughputProfile(ThroughputProfile profile) {
+        this.throughputProfile = profile.toString();
+    }
+
+
+    @Override
+    public void reset() {
+        bytesDownloaded.set(0);
+        bytesUploaded.set(0);
+        filesDownloaded.set(0);
+        filesUploaded.set(0);
+        failedTransfers.set(0);
+        downloadRate.clear();
+        uploadRate.clear();
+        operations.clear();
+    }
+}
@@ -0,0 +1,115 @@
+package com.company;
+
+import java.util.Map;
+
+/**
+ * Management interface of the transfer metrics, as seen from a JMX console.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public interface TransferMetricsMXBean {
+
+    /**
+     * Gets the bytes received by downloads.
+     * @return total bytes downloaded
+     */
+    long getBytesDownloaded();
+
+
+    /**
+     * Gets the bytes sent by uploads.
+     * @return total bytes uploaded
+     */
+    long getBytesUploaded();
+
+
+    /**
+     * Gets the number of files downloaded successfully.
+     * @return download count
+     */
+    long getFilesDownloaded();
+
+
+    /**
+     * Gets the number of files uploaded successfully.
+     * @return upload count
+     */
+    long getFilesUploaded();
+
+
+    /**
+     * Gets the number of downloads and uploads that failed.
+     * @return failed transfer count
+     */
+    long getFailedTransfers();
+
+
+    /**
+     * Gets the download throughput over the last few seconds.
+     * @return bytes per second
+     */
+    double getDownloadThroughput();
+
+
+    /**
+     * Gets the upload throughput over the last few seconds.
+     * @return bytes per second
+     */
+    double getUploadThroughput();
+
+
+    /**
+     * Gets how often each operation ran.
+     * @return count keyed by operation name
+     */
+    Map<String, Long> getOperationCounts();
+
+
+    /**
+     * Gets how often each operation failed.
+     * @return error count keyed by operation name
+     */
+    Map<String, Long> getOperationErrors();
+
+
+    /**
+     * Gets the mean latency of each operation.
+     * @return milliseconds keyed by operation name
+     */
+    Map<String, Double> getMeanLatencyMillis();
+
+
+    /**
+     * Gets the latency histogram of each operation. Bucket i counts calls no slower than
+     * getLatencyBucketBoundsMillis()[i], and the last bucket counts everything slower.
+     * @return bucket counts keyed by operation name
+     */
+    Map<String, long[]> getLatencyHistograms();
+
+
+    /**
+     * Gets the upper bounds of the latency histogram buckets.
+     * @return bounds in milliseconds
+     */
+    long[] getLatencyBucketBoundsMillis();
+
+
+    /**
+     * Formats every metric as text.
+     * @return the metrics, one per line
+     */
+    String dump();
+
+
+    /**
+     * Gets the throughput profile transfers currently run with.
+     * @return description of the profile, empty before the first connection
+     */
+    String getThroughputProfile();
+
+
+    /**
+     * Sets every metric back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,180 @@
+package com.company;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the results of a batch of transfers.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class TransferReport {
+    private final List<TransferResult> results = Collections.synchronizedList(new ArrayList<>());
+    private final boolean keepSuccesses;
+    private final long startTime = System.currentTimeMillis();
+    private long endTime = 0;
+    private int count = 0;
+    private int successCount = 0;
+    private long totalBytes = 0;
+
+
+    /**
+     * Constructor for a report that keeps every result.
+     */
+    public TransferReport() {
+        this(true);
+    }
+
+
+    /**
+     * Constructor that sets whether successful results are kept or only counted.
+     * @param keepSuccesses false to keep only failures, so large batches use constant memory
+     */
+    public TransferReport(boolean keepSuccesses) {
+        this.keepSuccesses = keepSuccesses;
+    }
+
+
+    /**
+     * Records the outcome of one transfer.
+     * @param result result to record
+     */
+    public void add(TransferResult result) {
+        synchronized (results) {
+            ++count;
+            if (result.isSuccess()) {
+                ++successCount;
+                totalBytes += result.getBytes();
+            }
+            if (keepSuccesses || !result.isSuccess()) {
+                results.add(result);
+            }
+        }
+    }
+
+
+    /**
+     * Adds the results and totals of another batch to this one.
+     * @param other report to take the results from
+     */
+    public void addAll(TransferReport other) {
+        List<TransferResult> kept = other.getResults();
+        int otherCount;
+        int otherSuccesses;
+        long otherBytes;
+        synchronized (other.results) {
+            otherCount = other.count;
+            otherSuccesses = other.successCount;
+            otherBytes = other.totalBytes;
+        }
+        synchronized (results) {
+            count += otherCount;
+            successCount += otherSuccesses;
+            totalBytes += otherBytes;
+            for (TransferResult result : kept) {
+                if (keepSuccesses || !result.isSuccess()) {
+                    results.add(result);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Marks the batch as finished.
+     */
+    public void finish() {
+        this.endTime = System.currentTimeMillis();
+    }
+
+
+    /**
+     * Gets every recorded result. Successes are left out if the report only counts them.
+     * @return a copy of the results
+     */
+    public List<TransferResult> getResults() {
+        synchronized (results) {
+            return new ArrayList<>(results);
+        }
+    }
+
+
+    /**
+     * Gets the failed results.
+     * @return the results that did not complete
+     */
+    public List<TransferResult> getFailures() {
+        List<TransferResult> failures = new ArrayList<>();
+        for (TransferResult result : getResults()) {
+            if (!result.isSuccess()) {
+                failures.add(result);
+            }
+        }
+        return failures;
+    }
+
+
+    /**
+     * Gets the number of successful transfers.
+     * @return successful transfer count
+     */
+    public int getSuccessCount() {
+        synchronized (results) {
+            return successCount;
+        }
+    }
+
+
+    /**
+     * Gets the number of transfers recorded, successful or not.
+     * @return transfer count
+     */
+    public int getCount() {
+        synchronized (results) {
+            return count;
+        }
+    }
+
+
+    /**
+     * Gets the number of bytes moved by successful transfers.
+     * @return total bytes
+     */
+    public long getTotalBytes() {
+        synchronized (results) {
+            return totalBytes;
+        }
+    }
+
+
+    /**
+     * Gets the wall clock time of the batch.
+     * @return elapsed milliseconds
+     */
+    public long getElapsedMillis() {
+        long end = this.endTime == 0 ? System.currentTimeMillis() : this.endTime;
+        return Math.max(end - this.startTime, 1);
+    }
+
+
+    /**
+     * Gets the aggregate throughput of the batch.
+     * @return bytes per second
+     */
+    public double getThroughput() {
+        return getTotalBytes() * 1000.0 / getElapsedMillis();
+    }
+
+
+    /**
+     * Summarizes the batch in one line.
+     * @return summary
+     */
+    @Override
+    public String toString() {
+        return String.format("%d/%d Files Transferred, %d bytes in %.2fs (%.1f KB/s)",
+                getSuccessCount(), getCount(), getTotalBytes(),
+                getElapsedMillis() / 1000.0, getThroughput() / 1024.0);
+    }
+}
@@ -0,0 +1,99 @@
+package com.company;
+
+/**
+ * Outcome of a single file transfer.
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class TransferResult {
+    private final String source;
+    private final String destination;
+    private final long bytes;
+    private final long elapsedMillis;
+    private final String error;
+
+
+    /**
+     * Constructor for a finished transfer.
+     * @param source file that was read
+     * @param destination file that was written
+     * @param bytes number of bytes moved
+     * @param elapsedMillis time spent on the transfer
+     * @param error reason for failure, null if the transfer succeeded
+     */
+    public TransferResult(String source, String destination, long bytes, long elapsedMillis, String error) {
+        this.source = source;
+        this.destination = destination;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+        this.error = error;
+    }
+
+
+    /**
+     * Creates a successful result.
+     * @param source file that was read
+     * @param destination file that was written
+     * @param bytes number of bytes moved
+     * @param elapsedMillis time spent on the transfer
+     * @return the result
+     */
+    public static TransferResult success(String source, String destination, long bytes, long elapsedMillis) {
+        return new TransferResult(source, destination, bytes, elapsedMillis, null);
+    }
+
+
+    /**
+     * Creates a failed result.
+     * @param source file that was read
+     * @param destination file that should have been written
+     * @param error reason for failure
+     * @return the result
+     */
+    public static TransferResult failure(String source, String destination, String error) {
+        return new TransferResult(source, destination, 0, 0, error == null ? "Unknown Error" : error);
+    }
+
+
+    public String getSource() {
+        return source;
+    }
+
+
+    public String getDestination() {
+        return destination;
+    }
+
+
+    public long getBytes() {
+        return bytes;
+    }
+
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+
+    public String getError() {
+        return error;
+    }
+
+
+    /**
+     * Returns whether the transfer completed.
+     * @return true on success, false otherwise.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+
+    @Override
+    public String toString() {
+        if (isSuccess()) {
+            return source + " -> " + destination + " (" + bytes + " bytes)";
+        }
+        return source + " FAILED: " + error;
+    }
+}
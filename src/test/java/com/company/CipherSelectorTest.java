@@ -0,0 +1,60 @@
+package com.company;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Cipher selector test cases
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class CipherSelectorTest {
+
+    @Test
+    public void testRankCiphers() throws Exception {
+        List<String> ranked = Arrays.asList(CipherSelector.rankCiphers("3des-cbc,no-such-cipher,aes128-ctr").split(","));
+        assertEquals(ranked.size(), 2);
+        assertEquals(ranked.containsAll(Arrays.asList("aes128-ctr", "3des-cbc")), true);
+        assertEquals(CipherSelector.speed(ranked.get(0)) >= CipherSelector.speed(ranked.get(1)), true);
+        assertEquals(CipherSelector.speed("no-such-cipher") < 0, true);
+
+        //Nothing usable leaves the list as it was.
+        assertEquals(CipherSelector.rankCiphers("no-such-cipher"), "no-such-cipher");
+    }
+
+    @Test
+    public void testCompresses() throws Exception {
+        byte[] random = new byte[64 * 1024];
+        new Random(3).nextBytes(random);
+        assertEquals(CipherSelector.compresses(new byte[64 * 1024]), true);
+        assertEquals(CipherSelector.compresses(random), false);
+        assertEquals(CipherSelector.compresses(new byte[0]), false);
+        assertEquals(CipherSelector.compression(random), CipherSelector.NO_COMPRESSION);
+        assertEquals(CipherSelector.compression(new byte[1024]), CipherSelector.COMPRESSION);
+    }
+
+    @Test
+    public void testSample() throws Exception {
+        File dir = Files.createTempDirectory("sample").toFile();
+        File big = new File(dir, "big");
+        File small = new File(dir, "small");
+        Files.write(big.toPath(), new byte[CipherSelector.SAMPLE_SIZE * 2]);
+        Files.write(small.toPath(), new byte[10]);
+
+        //A file is sampled up to the full size, a directory a block of each file.
+        assertEquals(CipherSelector.sample(big).length, CipherSelector.SAMPLE_SIZE);
+        assertEquals(CipherSelector.sample(dir).length, 16 * 1024 + 10);
+        assertEquals(CipherSelector.sample(new File(dir, "missing")).length, 0);
+
+        big.delete();
+        small.delete();
+        dir.delete();
+    }
+}
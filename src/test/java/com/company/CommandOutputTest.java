@@ -0,0 +1,86 @@
+package com.company;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Command output test cases
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class CommandOutputTest {
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+    private PrintStream originalOut;
+    private PrintStream originalErr;
+
+    @Before
+    public void setUpStreams() {
+        this.originalOut = System.out;
+        this.originalErr = System.err;
+        System.setOut(new PrintStream(this.outContent));
+        System.setErr(new PrintStream(this.errContent));
+    }
+
+    @After
+    public void restoreStreams() {
+        System.setOut(this.originalOut);
+        System.setErr(this.originalErr);
+    }
+
+    @Test
+    public void testQuote() {
+        assertEquals(CommandOutput.quote("a\"b\\c\nd\u0001"), "\"a\\\"b\\\\c\\nd\\u0001\"");
+    }
+
+    @Test
+    public void testLinesAreBufferedUntilFlush() {
+        CommandOutput output = new CommandOutput();
+        output.line("one");
+        output.line("two");
+        assertEquals(this.outContent.size(), 0);
+        output.flush();
+        String sep = System.lineSeparator();
+        assertEquals(this.outContent.toString(), "one" + sep + "two" + sep);
+    }
+
+    @Test
+    public void testHumanFormat() {
+        CommandOutput output = new CommandOutput();
+        output.message("Directory: ");
+        output.path("lpwd", "/tmp");
+        output.error("line 3: cd x", "No such file");
+        assertEquals(this.outContent.toString(), "Directory: /tmp" + System.lineSeparator());
+        assertEquals(this.errContent.toString(), "line 3: cd x: No such file" + System.lineSeparator());
+    }
+
+    @Test
+    public void testJsonFormat() {
+        CommandOutput output = new CommandOutput();
+        output.setFormat(CommandOutput.Format.JSON);
+        output.message("\n");
+        output.message("Upload Complete\n");
+        output.error("line 3", "failed");
+        TransferReport report = new TransferReport();
+        report.add(TransferResult.success("a", "/r/a", 10, 5));
+        report.add(TransferResult.failure("b", "/r/b", "No such file"));
+        report.finish();
+        output.report(report);
+
+        String[] lines = this.outContent.toString().split(System.lineSeparator());
+        assertEquals(lines.length, 5);
+        assertEquals(lines[0], "{\"type\":\"message\",\"text\":\"Upload Complete\"}");
+        assertEquals(lines[1], "{\"type\":\"error\",\"context\":\"line 3\",\"message\":\"failed\"}");
+        assertEquals(lines[2], "{\"type\":\"transfer\",\"source\":\"a\",\"destination\":\"/r/a\",\"success\":true,"
+                + "\"bytes\":10,\"millis\":5,\"error\":null}");
+        assertEquals(lines[3].contains("\"success\":false,"), true);
+        assertEquals(lines[4].startsWith("{\"type\":\"report\",\"files\":2,\"succeeded\":1,\"bytes\":10,"), true);
+        assertEquals(this.errContent.size(), 0);
+    }
+}
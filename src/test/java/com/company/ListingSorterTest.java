@@ -0,0 +1,91 @@
+package com.company;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Listing sorter test cases
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class ListingSorterTest {
+
+    private static List<ListingSorter.Row> rows(int count) {
+        List<ListingSorter.Row> rows = new ArrayList<>();
+        Random random = new Random(count);
+        for (int i = 0; i < count; ++i) {
+            rows.add(new ListingSorter.Row("file" + i, random.nextInt(1000), random.nextInt(100), "line" + i));
+        }
+        return rows;
+    }
+
+    private static List<String> page(ListingSorter.Order order, boolean descending, long offset, long limit,
+                                     int memoryRows, List<ListingSorter.Row> rows, ListingSorter[] used) throws Exception {
+        List<String> names = new ArrayList<>();
+        try (ListingSorter sorter = new ListingSorter(order, descending, offset, limit, row -> names.add(row.getName()))) {
+            sorter.setMemoryRows(memoryRows);
+            for (ListingSorter.Row row : rows) {
+                if (!sorter.add(row)) {
+                    break;
+                }
+            }
+            sorter.finish();
+            used[0] = sorter;
+        }
+        return names;
+    }
+
+    private static List<String> expected(ListingSorter.Order order, boolean descending, int offset, int limit,
+                                         List<ListingSorter.Row> rows) {
+        List<ListingSorter.Row> sorted = new ArrayList<>(rows);
+        sorted.sort(ListingSorter.comparator(order, descending));
+        List<String> names = new ArrayList<>();
+        for (ListingSorter.Row row : sorted.subList(offset, Math.min(sorted.size(), offset + limit))) {
+            names.add(row.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testHeapPage() throws Exception {
+        List<ListingSorter.Row> rows = rows(500);
+        ListingSorter[] used = new ListingSorter[1];
+        assertEquals(page(ListingSorter.Order.SIZE, true, 20, 10, 100, rows, used),
+                expected(ListingSorter.Order.SIZE, true, 20, 10, rows));
+        assertEquals(used[0].getRunCount(), 0);
+        assertEquals(used[0].getCount(), 500L);
+    }
+
+    @Test
+    public void testExternalMergeSort() throws Exception {
+        List<ListingSorter.Row> rows = rows(1000);
+        ListingSorter[] used = new ListingSorter[1];
+        assertEquals(page(ListingSorter.Order.MTIME, false, 0, 0, 64, rows, used),
+                expected(ListingSorter.Order.MTIME, false, 0, 1000, rows));
+        assertEquals(used[0].getRunCount(), 16);
+        assertEquals(page(ListingSorter.Order.NAME, false, 900, 50, 64, rows, used),
+                expected(ListingSorter.Order.NAME, false, 900, 50, rows));
+    }
+
+    @Test
+    public void testUnsortedStopsAtPageEnd() throws Exception {
+        List<ListingSorter.Row> rows = rows(100);
+        ListingSorter[] used = new ListingSorter[1];
+        List<String> names = page(null, false, 5, 3, 10, rows, used);
+        assertEquals(names.toString(), "[file5, file6, file7]");
+        assertEquals(used[0].getCount(), 8L);
+    }
+
+    @Test
+    public void testPagePastEnd() throws Exception {
+        List<ListingSorter.Row> rows = rows(10);
+        ListingSorter[] used = new ListingSorter[1];
+        assertEquals(page(ListingSorter.Order.NAME, false, 20, 5, 100, rows, used).isEmpty(), true);
+        assertEquals(page(ListingSorter.Order.NAME, false, 8, 5, 100, rows, used).size(), 2);
+    }
+}
@@ -0,0 +1,125 @@
+package com.company;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Local file I/O test cases
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class LocalFileIOTest {
+    private final static int SIZE = 3 * LocalFileIO.DIRECT_BUFFER_SIZE + 1234;
+
+    private static File randomFile(int size) throws Exception {
+        File file = File.createTempFile("localio", ".tmp");
+        file.deleteOnExit();
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        Files.write(file.toPath(), data);
+        return file;
+    }
+
+    private static byte[] readAll(InputStream in, int size) throws Exception {
+        byte[] data = new byte[size];
+        byte[] buffer = new byte[7000];
+        int total = 0;
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            System.arraycopy(buffer, 0, data, total, read);
+            total += read;
+        }
+        return Arrays.copyOf(data, total);
+    }
+
+    @Test
+    public void testReadRegion() throws Exception {
+        File file = randomFile(SIZE);
+        byte[] expected = Files.readAllBytes(file.toPath());
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (long threshold : new long[] {Long.MAX_VALUE, 0}) {
+                try (LocalFileIO.Input in = LocalFileIO.newInputStream(channel, 1000, SIZE - 2000, threshold)) {
+                    assertEquals(in.isMapped(), threshold == 0);
+                    assertEquals(Arrays.equals(readAll(in, SIZE), Arrays.copyOfRange(expected, 1000, SIZE - 1000)), true);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSkipAndEnd() throws Exception {
+        File file = randomFile(SIZE);
+        byte[] expected = Files.readAllBytes(file.toPath());
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             InputStream in = LocalFileIO.newInputStream(channel, 0, Long.MAX_VALUE)) {
+            assertEquals(in.read(), expected[0] & 0xff);
+            assertEquals(in.skip(SIZE - 11), (long)SIZE - 11);
+            assertEquals(Arrays.equals(readAll(in, SIZE), Arrays.copyOfRange(expected, SIZE - 10, SIZE)), true);
+            assertEquals(in.skip(5), 0L);
+            assertEquals(in.read(), -1);
+        }
+    }
+
+    @Test
+    public void testWriteAtPosition() throws Exception {
+        File source = randomFile(SIZE);
+        byte[] expected = Files.readAllBytes(source.toPath());
+        File target = File.createTempFile("localio", ".out");
+        target.deleteOnExit();
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE)) {
+            LocalFileIO.Output out = LocalFileIO.newOutputStream(channel, 100);
+            out.write(expected, 100, 10);
+            assertEquals(out.getPosition(), 100L);
+            out.write(expected, 110, SIZE - 110);
+            out.close();
+            assertEquals(out.getPosition(), (long)SIZE);
+            LocalFileIO.newOutputStream(channel, 0).close();
+            try (OutputStream head = LocalFileIO.newOutputStream(channel, 0)) {
+                head.write(expected, 0, 100);
+            }
+        }
+        assertEquals(Arrays.equals(Files.readAllBytes(target.toPath()), expected), true);
+    }
+
+    @Test
+    public void testCopyAllocatesNoHeapPerMegabyte() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        File source = randomFile(8 * 1024 * 1024);
+        File target = File.createTempFile("localio", ".out");
+        target.deleteOnExit();
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.WRITE)) {
+            copy(in, out, 0);
+            copy(in, out, Long.MAX_VALUE);
+            long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            copy(in, out, 0);
+            copy(in, out, Long.MAX_VALUE);
+            long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+            assertEquals(allocated < 64 * 1024, true);
+        }
+        assertEquals(Arrays.equals(Files.readAllBytes(target.toPath()), Files.readAllBytes(source.toPath())), true);
+    }
+
+    private static void copy(FileChannel in, FileChannel out, long mapThreshold) throws Exception {
+        byte[] buffer = LocalFileIO.borrowArray(ThroughputProfile.DEFAULT_BUFFER_SIZE);
+        try (InputStream from = LocalFileIO.newInputStream(in, 0, Long.MAX_VALUE, mapThreshold);
+             OutputStream to = LocalFileIO.newOutputStream(out, 0)) {
+            int read;
+            while ((read = from.read(buffer)) > 0) {
+                to.write(buffer, 0, read);
+            }
+        }
+        LocalFileIO.release(buffer);
+    }
+}
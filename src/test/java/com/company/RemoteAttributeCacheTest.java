@@ -0,0 +1,58 @@
+package com.company;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Remote attribute cache test cases
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class RemoteAttributeCacheTest {
+    private RemoteAttributeCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new RemoteAttributeCache(60 * 1000, 16);
+    }
+
+    @Test
+    public void testUnknownPath() throws Exception {
+        assertNull(cache.exists("/a"));
+        assertNull(cache.isDirectory("/a"));
+        assertNull(cache.get("/a"));
+    }
+
+    @Test
+    public void testPutExistsAndAbsent() throws Exception {
+        cache.putExists("/a/dir/", true);
+        assertEquals(true, cache.exists("/a/dir"));
+        assertEquals(true, cache.isDirectory("/a/dir"));
+        assertNull(cache.get("/a/dir"));
+
+        cache.putAbsent("/a/dir");
+        assertEquals(false, cache.exists("/a/dir"));
+        assertNull(cache.isDirectory("/a/dir"));
+    }
+
+    @Test
+    public void testMove() throws Exception {
+        cache.putExists("/a", true);
+        cache.putExists("/a/file", false);
+        cache.move("/a", "/b");
+        assertEquals(false, cache.exists("/a"));
+        assertNull(cache.exists("/a/file"));
+        assertEquals(true, cache.isDirectory("/b"));
+    }
+
+    @Test
+    public void testStale() throws Exception {
+        cache.setMaxAge(1);
+        cache.putExists("/a", false);
+        Thread.sleep(5);
+        assertNull(cache.exists("/a"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.company;
+
+import com.jcraft.jsch.ChannelSftp;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Remote listing cache test cases
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class RemoteListingCacheTest {
+    private RemoteListingCache cache;
+    private final Vector<ChannelSftp.LsEntry> listing = new Vector<>();
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new RemoteListingCache(60 * 1000, 2);
+    }
+
+    @Test
+    public void testGetNormalizesPath() throws Exception {
+        cache.put("/home/user/", listing);
+        assertNotNull(cache.get("/home/user"));
+        assertNotNull(cache.get("/home/./user/docs/.."));
+    }
+
+    @Test
+    public void testOversizedListingNotCached() throws Exception {
+        cache.put("/huge", new Vector<>(Collections.nCopies(RemoteListingCache.MAX_LISTING_ENTRIES + 1, null)));
+        assertNull(cache.get("/huge"));
+        cache.put("/large", new Vector<>(Collections.nCopies(RemoteListingCache.MAX_LISTING_ENTRIES, null)));
+        assertNotNull(cache.get("/large"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        cache.put("/a", listing);
+        cache.put("/b", listing);
+        cache.get("/a");
+        cache.put("/c", listing);
+        assertNotNull(cache.get("/a"));
+        assertNull(cache.get("/b"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testExpired() throws Exception {
+        cache.setTtl(1);
+        cache.put("/a", listing);
+        Thread.sleep(5);
+        assertNull(cache.get("/a"));
+    }
+
+    @Test
+    public void testInvalidateParent() throws Exception {
+        cache.put("/a", listing);
+        cache.invalidateParent("/a/file.txt");
+        assertNull(cache.get("/a"));
+    }
+
+    @Test
+    public void testInvalidateTree() throws Exception {
+        cache = new RemoteListingCache(60 * 1000, 8);
+        cache.put("/", listing);
+        cache.put("/a", listing);
+        cache.put("/a/b", listing);
+        cache.put("/ab", listing);
+        cache.invalidateTree("/a");
+        assertNull(cache.get("/"));
+        assertNull(cache.get("/a"));
+        assertNull(cache.get("/a/b"));
+        assertNotNull(cache.get("/ab"));
+    }
+}
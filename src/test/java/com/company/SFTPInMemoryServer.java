@@ -2,9 +2,17 @@ package com.company;
 
 import java.io.IOException;
 import java.security.Security;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import org.apache.sshd.SshServer;
 import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.Compression;
+import org.apache.sshd.common.compression.CompressionDelayedZlib;
+import org.apache.sshd.common.compression.CompressionNone;
+import org.apache.sshd.common.compression.CompressionZlib;
+import org.apache.sshd.common.session.AbstractSession;
 import org.apache.sshd.server.Command;
 import org.apache.sshd.server.PasswordAuthenticator;
 import org.apache.sshd.server.command.ScpCommandFactory;
@@ -21,7 +29,10 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
  */
 public class SFTPInMemoryServer {
     public static final int PORT = 6969;
+    public static final String PASSWORD = "password";
     private SshServer sshServer;
+    private final List<String> execCommands = Collections.synchronizedList(new ArrayList<>());
+    private volatile String execPath = null;
 
     public SFTPInMemoryServer() {
         Security.addProvider(new BouncyCastleProvider());
@@ -32,13 +43,29 @@ public class SFTPInMemoryServer {
 
         SftpSubsystem.Factory factory = new SftpSubsystem.Factory();
         sshServer.setSubsystemFactories(Arrays.<NamedFactory<Command>>asList(factory));
-        sshServer.setCommandFactory(new ScpCommandFactory());
+        sshServer.setCommandFactory(new ScpCommandFactory(command -> {
+            execCommands.add(command);
+            String path = execPath == null ? "" : "PATH=" + execPath + "; ";
+            return new ProcessShellFactory(new String[] {"/bin/sh", "-c", path + command}).create();
+        }));
         sshServer.setShellFactory(new ProcessShellFactory());
         sshServer.setPasswordAuthenticator(PasswordAuthenticator());
+        sshServer.setCompressionFactories(Arrays.<NamedFactory<Compression>>asList(
+                new CompressionNone.Factory(), new CompressionZlib.Factory(), new CompressionDelayedZlib.Factory()));
     }
 
     private PasswordAuthenticator PasswordAuthenticator() {
-        return (arg0, arg1, arg2) -> true;
+        return (arg0, arg1, arg2) -> PASSWORD.equals(arg1);
+    }
+
+    public List<String> getExecCommands() {
+        synchronized (execCommands) {
+            return new ArrayList<>(execCommands);
+        }
+    }
+
+    public void setExecPath(String path) {
+        execPath = path;
     }
 
     public void start(){
@@ -49,6 +76,17 @@ public class SFTPInMemoryServer {
         }
     }
 
+    public int dropSessions(String userName) {
+        int dropped = 0;
+        for (AbstractSession session : sshServer.getActiveSessions()) {
+            if (userName.equals(session.getUsername())) {
+                session.close(true);
+                ++dropped;
+            }
+        }
+        return dropped;
+    }
+
     public void stop(){
         try {
             sshServer.stop();
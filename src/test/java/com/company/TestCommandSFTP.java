@@ -1,14 +1,27 @@
 package com.company;
 
+import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
 import org.junit.*;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 
 import static junit.framework.TestCase.assertEquals;
 
@@ -24,11 +37,16 @@ public class TestCommandSFTP {
     private final static ByteArrayOutputStream outContent = new ByteArrayOutputStream();
     private final static ByteArrayOutputStream errContent = new ByteArrayOutputStream();
 
+    //Keeps the tests' transfers out of the real journal in the home directory.
+    @ClassRule
+    public static final TemporaryFolder journals = new TemporaryFolder();
+
 
 
     @BeforeClass
     public static void beforeClass() throws NoSuchMethodException, NoSuchFieldException, IOException, JSchException {
         server.start();
+        commandSFTP.setJournalFile(journalFile());
         commandSFTP.setUser(new User("remote user", "password"));
         commandSFTP.connect();
         System.setOut(new PrintStream(outContent));
@@ -36,6 +54,10 @@ public class TestCommandSFTP {
 
     }
 
+    private static String journalFile() {
+        return journals.getRoot() + "/sftp_journal";
+    }
+
     @Before
     public void before() {
 
@@ -58,6 +80,8 @@ public class TestCommandSFTP {
     public void testDisconnect() throws Exception {
         assertEquals(commandSFTP.quit(), true);
         assertEquals(commandSFTP.checkConnect(), false);
+        //Quitting clears the password, so connecting again takes it anew.
+        commandSFTP.setUser(new User("remote user", "password"));
         assertEquals(commandSFTP.connect(), true);
     }
 
@@ -275,10 +299,1011 @@ public class TestCommandSFTP {
         assertEquals(outContent.toString().contains(newFile), false);
     }
 
+    @Test
+    public void testGetMultipleRemote() throws Exception {
+        String testDir = "TESTMULTIDIR";
+        String [] testFiles = {"TESTMULTI1", "TESTMULTI2", "TESTMULTI3"};
+        String localDir = new File("").getAbsolutePath();
+
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.createRemoteDir(testDir);
+        commandSFTP.changeRemoteDirectory(testDir);
+        for (String testFile : testFiles) {
+            File file = new File(testFile);
+            file.createNewFile();
+            commandSFTP.uploadRemoteFile(testFile);
+            file.delete();
+        }
+
+        TransferReport report = commandSFTP.getMultipleRemote(new String[] {
+                testFiles[0], testFiles[1], testFiles[2], "NOTREAL.txt"});
+        assertEquals(report.getResults().size(), 4);
+        assertEquals(report.getSuccessCount(), 3);
+        assertEquals(report.getFailures().get(0).getSource().endsWith("NOTREAL.txt"), true);
+        for (String testFile : testFiles) {
+            assertEquals(new File(testFile).exists(), true);
+            new File(testFile).delete();
+        }
+
+        commandSFTP.changeRemoteDirectory("..");
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testGetMultipleRemoteSameName() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String sourceDir = localDir + "/TESTSAMENAMESRC";
+        String testDir = localDir + "/TESTSAMENAMEDIR";
+        new File(sourceDir + "/a").mkdirs();
+        new File(sourceDir + "/b").mkdirs();
+        new File(testDir).mkdirs();
+        Files.write(Paths.get(sourceDir, "a", "x"), new byte[100]);
+        Files.write(Paths.get(sourceDir, "b", "x"), new byte[200]);
+
+        commandSFTP.changeRemoteDirectory(sourceDir);
+        commandSFTP.changeCurrentLocalDirectory(testDir);
+        TransferReport report = commandSFTP.getMultipleRemote(new String[] {"a/x", "b/x", "./a/x"});
+        commandSFTP.changeRemoteDirectory(localDir);
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+
+        assertEquals(report.getSuccessCount(), 2);
+        assertEquals(report.getFailures().size(), 1);
+        assertEquals(report.getFailures().get(0).getError(), "Duplicate Destination");
+        assertEquals(new File(testDir, "a/x").length(), 100L);
+        assertEquals(new File(testDir, "b/x").length(), 200L);
+        commandSFTP.deleteRemoteDirectory(sourceDir);
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testGetMultipleRemoteNameAndPattern() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String sourceDir = localDir + "/TESTNAMEPATTERNSRC";
+        String testDir = localDir + "/TESTNAMEPATTERNDIR";
+        new File(sourceDir + "/a").mkdirs();
+        new File(sourceDir + "/b").mkdirs();
+        new File(testDir).mkdirs();
+        Files.write(Paths.get(sourceDir, "a", "x.txt"), new byte[100]);
+        Files.write(Paths.get(sourceDir, "b", "y.log"), new byte[200]);
+
+        commandSFTP.changeRemoteDirectory(sourceDir);
+        commandSFTP.changeCurrentLocalDirectory(testDir);
+        TransferReport report = commandSFTP.getMultipleRemote(new String[] {"a/x.txt", "b/*.log"});
+        commandSFTP.changeRemoteDirectory(localDir);
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+
+        //The plain name keeps its path as it would on its own; the match lands below the fixed part of the pattern.
+        assertEquals(report.getFailures().size(), 0);
+        assertEquals(report.getSuccessCount(), 2);
+        assertEquals(new File(testDir, "a/x.txt").length(), 100L);
+        assertEquals(new File(testDir, "y.log").length(), 200L);
+        commandSFTP.deleteRemoteDirectory(sourceDir);
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testGetRemotePattern() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String sourceDir = localDir + "/TESTGLOBSRC";
+        String testDir = localDir + "/TESTGLOBDIR";
+        byte [] data = new byte[16 * 1024];
+        new Random(21).nextBytes(data);
+        for (String day : new String[] {"2026-10-01", "2026-10-02", "2026-11-01"}) {
+            new File(sourceDir + "/" + day).mkdirs();
+            for (int i = 0; i < 3; ++i) {
+                Files.write(Paths.get(sourceDir, day, "part-" + i), data);
+            }
+            Files.write(Paths.get(sourceDir, day, "summary.txt"), data);
+        }
+        Files.write(Paths.get(sourceDir, "a.log"), data);
+        Files.write(Paths.get(sourceDir, "b.log"), data);
+        Files.write(Paths.get(sourceDir, "c.txt"), data);
+        new File(testDir).mkdirs();
+
+        commandSFTP.changeCurrentLocalDirectory(testDir);
+        commandSFTP.changeRemoteDirectory(sourceDir);
+        TransferReport report = commandSFTP.getMultipleRemote(new String[] {"*.log", "2026-10-*/part-*", "*.csv"});
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.changeRemoteDirectory(localDir);
+
+        assertEquals(report.getSuccessCount(), 2 + 2 * 3);
+        assertEquals(report.getFailures().size(), 1);
+        assertEquals(report.getFailures().get(0).getSource().endsWith("*.csv"), true);
+        assertEquals(report.getTotalBytes(), (2 + 2 * 3) * data.length);
+        assertEquals(new File(testDir, "a.log").exists(), true);
+        assertEquals(new File(testDir, "c.txt").exists(), false);
+        assertEquals(Arrays.equals(Files.readAllBytes(Paths.get(testDir, "2026-10-02", "part-2")), data), true);
+        assertEquals(new File(testDir, "2026-10-01/summary.txt").exists(), false);
+        assertEquals(new File(testDir, "2026-11-01").exists(), false);
+
+        commandSFTP.deleteRemoteDirectory(testDir);
+        commandSFTP.deleteRemoteDirectory(sourceDir);
+    }
+
+    @Test
+    public void testSegmentedGetRemoteFile() throws Exception {
+        String testDir = "TESTSEGMENTDIR";
+        String testFile = "TESTSEGMENTFILE";
+        byte [] data = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(data);
+
+        commandSFTP.changeCurrentLocalDirectory(new File("").getAbsolutePath());
+        commandSFTP.createRemoteDir(testDir);
+        commandSFTP.changeRemoteDirectory(testDir);
+        Files.write(Paths.get(testFile), data);
+        commandSFTP.uploadRemoteFile(testFile);
+        new File(testFile).delete();
+
+        commandSFTP.setSegmentThreshold(1);
+        commandSFTP.getRemoteFile(testFile);
+        commandSFTP.setSegmentThreshold(SegmentedTransfer.DEFAULT_THRESHOLD);
+        assertEquals(Arrays.equals(Files.readAllBytes(Paths.get(testFile)), data), true);
+        assertEquals(new File(testFile + SegmentedTransfer.PART_SUFFIX).exists(), false);
+
+        //A download whose ranges fail leaves the old destination as it was and no partial file.
+        Files.write(Paths.get(testFile), new byte[10]);
+        SessionManager manager = new SessionManager(0);
+        SessionManager.HostConfig config = new SessionManager.HostConfig(
+                new User("segment user", "password"), "localhost", SFTPInMemoryServer.PORT, hostFile, 10000);
+        ChannelPool failing = new ChannelPool(manager.getSession(config), 2, 10000, 0) {
+            private int leases = 0;
+
+            @Override
+            public synchronized ChannelSftp lease() throws JSchException {
+                //The size lookup gets a channel, the ranges don't.
+                if (++leases > 1) {
+                    throw new JSchException("Lease Refused");
+                }
+                return super.lease();
+            }
+        };
+        TransferResult result = new SegmentedTransfer(failing, 2)
+                .download(new File(testDir, testFile).getAbsolutePath(), new File(testFile).getAbsolutePath());
+        failing.close();
+        manager.closeAll();
+        assertEquals(result.isSuccess(), false);
+        assertEquals(new File(testFile).length(), 10L);
+        assertEquals(new File(testFile + SegmentedTransfer.PART_SUFFIX).exists(), false);
+
+        new File(testFile).delete();
+        commandSFTP.changeRemoteDirectory("..");
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testSegmentedUploadRemoteFile() throws Exception {
+        String testDir = "TESTSEGMENTUPDIR";
+        String testFile = "TESTSEGMENTUPFILE";
+        byte [] data = new byte[3 * 1024 * 1024 + 5];
+        new Random(7).nextBytes(data);
+
+        commandSFTP.changeCurrentLocalDirectory(new File("").getAbsolutePath());
+        commandSFTP.createRemoteDir(testDir);
+        commandSFTP.changeRemoteDirectory(testDir);
+        Files.write(Paths.get(testFile), data);
+
+        commandSFTP.setSegmentThreshold(1);
+        commandSFTP.uploadRemoteFile(testFile);
+        commandSFTP.setSegmentThreshold(SegmentedTransfer.DEFAULT_THRESHOLD);
+
+        File uploaded = new File(testDir + "/" + testFile);
+        assertEquals(Arrays.equals(Files.readAllBytes(uploaded.toPath()), data), true);
+        assertEquals(new File(testDir + "/" + testFile + SegmentedTransfer.PART_SUFFIX).exists(), false);
+
+        new File(testFile).delete();
+        commandSFTP.changeRemoteDirectory("..");
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testResumePendingGet() throws Exception {
+        String testDir = "TESTRESUMEDIR";
+        String testFile = "TESTRESUMEFILE";
+        String localDir = new File("").getAbsolutePath();
+        File journalFile = new File(journals.getRoot(), "TESTJOURNAL");
+        byte [] data = new byte[200 * 1024];
+        new Random(3).nextBytes(data);
+
+        commandSFTP.setJournalFile(journalFile.getPath());
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.createRemoteDir(testDir);
+        File remoteFile = new File(testDir + "/" + testFile);
+        Files.write(remoteFile.toPath(), data);
+
+        //Leave half the file behind with a bad tail past the confirmed offset.
+        int confirmed = data.length / 2;
+        byte [] partial = Arrays.copyOf(data, confirmed + 100);
+        Arrays.fill(partial, confirmed, partial.length, (byte)0);
+        Files.write(Paths.get(testFile), partial);
+        commandSFTP.getJournal().begin(new TransferJournal.Entry(TransferJournal.GET, commandSFTP.getHostKey(),
+                remoteFile.getAbsolutePath(), localDir + "/" + testFile,
+                data.length, remoteFile.lastModified() / 1000, confirmed));
+
+        commandSFTP.resumePendingTransfers();
+        assertEquals(Arrays.equals(Files.readAllBytes(Paths.get(testFile)), data), true);
+        assertEquals(commandSFTP.getJournal().pending(commandSFTP.getHostKey()).isEmpty(), true);
+        assertEquals(new TransferJournal(journalFile.getPath()).pending(commandSFTP.getHostKey()).isEmpty(), true);
+
+        new File(testFile).delete();
+        commandSFTP.deleteRemoteDirectory(testDir);
+        commandSFTP.setJournalFile(journalFile());
+    }
+
+    @Test
+    public void testChannelPoolReuse() throws Exception {
+        ChannelPool pool = commandSFTP.getChannelPool();
+        ChannelSftp first = pool.lease();
+        ChannelSftp second = pool.lease();
+        assertEquals(first != second, true);
+        assertEquals(pool.getLeased(), 2);
+
+        pool.release(second);
+        assertEquals(pool.lease() == second, true);
+        pool.release(second);
+        pool.invalidate(first);
+        assertEquals(pool.getLeased(), 0);
+        assertEquals(first.isConnected(), false);
+    }
+
+    @Test
+    public void testChannelPoolEvictsIdle() throws Exception {
+        SessionManager manager = new SessionManager(0);
+        SessionManager.HostConfig config = new SessionManager.HostConfig(
+                new User("idle user", "password"), "localhost", SFTPInMemoryServer.PORT, hostFile, 10000);
+        ChannelPool pool = new ChannelPool(manager.getSession(config), 2, 10000, 200);
+        ChannelSftp channel = pool.lease();
+        pool.release(channel);
+        assertEquals(pool.getIdle(), 1);
+
+        //No further lease, the background eviction closes the channel on its own.
+        for (int i = 0; i < 50 && pool.getIdle() > 0; ++i) {
+            Thread.sleep(20);
+        }
+        assertEquals(pool.getIdle(), 0);
+        assertEquals(channel.isConnected(), false);
+        pool.close();
+        manager.closeAll();
+    }
+
+    @Test
+    public void testChannelPoolReserve() throws Exception {
+        SessionManager manager = new SessionManager(0);
+        CommandSFTP first = new CommandSFTP("localhost", SFTPInMemoryServer.PORT, hostFile);
+        CommandSFTP second = new CommandSFTP("localhost", SFTPInMemoryServer.PORT, hostFile);
+        for (CommandSFTP client : Arrays.asList(first, second)) {
+            client.setJournalFile(journalFile());
+            client.setSessionManager(manager);
+            client.setUser(new User("budget user", "password"));
+            assertEquals(client.connect(), true);
+        }
+
+        //Both clients' command channels come out of the one pool of the shared session.
+        ChannelPool shared = first.getChannelPool();
+        assertEquals(second.getChannelPool() == shared, true);
+        assertEquals(shared.getReserved(), 2);
+        assertEquals(shared.getMaxSize(), ChannelPool.DEFAULT_MAX_SIZE - 2);
+        first.quit();
+        assertEquals(shared.getReserved(), 1);
+        second.quit();
+        assertEquals(shared.getReserved(), 0);
+
+        //A pool never reserves its last channel.
+        SessionManager.HostConfig config = new SessionManager.HostConfig(
+                new User("budget user", "password"), "localhost", SFTPInMemoryServer.PORT, hostFile, 10000);
+        ChannelPool pool = new ChannelPool(manager.getSession(config), 3, 10000, 0);
+        ChannelSftp a = pool.reserve();
+        ChannelSftp b = pool.reserve();
+        assertEquals(pool.getMaxSize(), 1);
+        try {
+            pool.reserve();
+            assertEquals("reserve should fail", null);
+        }
+        catch (JSchException e) {
+            assertEquals(e.getMessage(), "Too Many Clients on Session");
+        }
+        ChannelSftp leased = pool.lease();
+        pool.release(leased);
+        pool.unreserve(a);
+        pool.unreserve(a);
+        assertEquals(pool.getReserved(), 1);
+        assertEquals(a.isConnected(), false);
+        pool.unreserve(b);
+        assertEquals(pool.getMaxSize(), 3);
+        pool.close();
+        manager.closeAll();
+    }
+
+    @Test
+    public void testSessionManager() throws Exception {
+        SessionManager manager = new SessionManager(0);
+        User firstUser = new User("first user", "password");
+        SessionManager.HostConfig first = new SessionManager.HostConfig(
+                firstUser, "localhost", SFTPInMemoryServer.PORT, hostFile, 10000);
+        //The config keeps its own copy of the password.
+        firstUser.clearPass();
+        SessionManager.HostConfig second = new SessionManager.HostConfig(
+                new User("second user", "password"), "localhost", SFTPInMemoryServer.PORT, hostFile, 10000);
+
+        assertEquals(manager.connectAll(Arrays.asList(first, second)).isEmpty(), true);
+        assertEquals(manager.getKeys().size(), 2);
+        assertEquals(manager.isConnected(first.getKey()), true);
+        assertEquals(manager.getSession(first) == manager.getSession(first), true);
+
+        manager.getSession(second).disconnect();
+        assertEquals(manager.evictUnhealthy(), 1);
+        assertEquals(manager.getKeys().contains(second.getKey()), false);
+
+        CommandSFTP shared = new CommandSFTP("localhost", SFTPInMemoryServer.PORT, hostFile);
+        shared.setJournalFile(journalFile());
+        shared.setSessionManager(manager);
+        User sharedUser = new User("first user", "password");
+        shared.setUser(sharedUser);
+        assertEquals(shared.connect(), true);
+        assertEquals(sharedUser.getPassword(), "");
+
+        //An evicted session is connected again with the command's copy of the password.
+        manager.getSession(first).disconnect();
+        assertEquals(manager.evictUnhealthy(), 1);
+        assertEquals(shared.checkConnect(), true);
+        assertEquals(manager.isConnected(first.getKey()), true);
+        assertEquals(shared.quit(), true);
+        assertEquals(manager.isConnected(first.getKey()), true);
+
+        manager.closeAll();
+        assertEquals(manager.getKeys().isEmpty(), true);
+    }
+
+    @Test
+    public void testListRemoteStreaming() throws Exception {
+        String testDir = new File("TESTSTREAMDIR").getAbsolutePath();
+        new File(testDir).mkdirs();
+        for (int i = 0; i < 50; ++i) {
+            new File(testDir, "file" + i).createNewFile();
+        }
+
+        List<String> names = new ArrayList<>();
+        boolean complete = commandSFTP.listRemote(testDir, entry -> {
+            names.add(entry.getFilename());
+            return names.size() < 10;
+        });
+        assertEquals(complete, false);
+        assertEquals(names.size(), 10);
+
+        names.clear();
+        complete = commandSFTP.listRemote(testDir, entry -> entry.getFilename().startsWith(".")
+                || names.add(entry.getFilename()));
+        assertEquals(complete, true);
+        assertEquals(names.size(), 50);
+        assertEquals(names.contains("file49"), true);
+
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testSortedListing() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String testDir = localDir + "/TESTSORTDIR";
+        new File(testDir).mkdirs();
+        for (int i = 0; i < 20; ++i) {
+            Files.write(Paths.get(testDir, "file" + (char)('a' + i)), new byte[(i * 7) % 20 * 100]);
+        }
+
+        commandSFTP.changeRemoteDirectory(testDir);
+        commandSFTP.changeCurrentLocalDirectory(testDir);
+        commandSFTP.setListingMemoryRows(4);
+        commandSFTP.setListingOrder(ListingSorter.Order.SIZE, true);
+        commandSFTP.setListingPage(1, 3);
+        outContent.reset();
+        commandSFTP.listCurrentRemoteFiles();
+        String remote = outContent.toString();
+        outContent.reset();
+        commandSFTP.listCurrentLocalDirectoryFiles();
+        String local = outContent.toString();
+
+        commandSFTP.setListingOrder(null, false);
+        commandSFTP.setListingPage(0, 0);
+        commandSFTP.setListingMemoryRows(ListingSorter.DEFAULT_MEMORY_ROWS);
+        commandSFTP.changeRemoteDirectory(localDir);
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+
+        //Sizes are (i * 7) % 20 * 100, so filer is the largest, followed by fileo, filel and filei.
+        String sep = System.lineSeparator();
+        assertEquals(remote, sep + "fileo" + sep + "filel" + sep + "filei" + sep);
+        assertEquals(local, remote);
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testJsonOutput() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String testDir = localDir + "/TESTJSONDIR";
+        new File(testDir).mkdirs();
+        Files.write(Paths.get(testDir, "data \"1\".txt"), new byte[1234]);
+
+        commandSFTP.changeRemoteDirectory(testDir);
+        commandSFTP.setOutputFormat(CommandOutput.Format.JSON);
+        outContent.reset();
+        commandSFTP.listCurrentRemoteDirectory();
+        commandSFTP.listCurrentRemoteFiles();
+        String json = outContent.toString();
+        commandSFTP.setOutputFormat(CommandOutput.Format.HUMAN);
+        commandSFTP.changeRemoteDirectory(localDir);
+
+        String[] lines = json.split(System.lineSeparator());
+        assertEquals(lines.length, 2);
+        assertEquals(lines[0], "{\"type\":\"pwd\",\"path\":" + CommandOutput.quote(testDir) + "}");
+        assertEquals(lines[1].startsWith("{\"type\":\"entry\",\"name\":\"data \\\"1\\\".txt\","), true);
+        assertEquals(lines[1].contains("\"size\":1234,"), true);
+        assertEquals(lines[1].contains("\"dir\":false,"), true);
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testDeleteRemoteTree() throws Exception {
+        String testDir = "TESTTREEDIR";
+        for (int i = 0; i < 3; ++i) {
+            File dir = new File(testDir + "/sub" + i + "/inner");
+            dir.mkdirs();
+            for (int j = 0; j < 70; ++j) {
+                new File(dir.getParentFile(), "file" + j).createNewFile();
+            }
+            new File(dir, "leaf").createNewFile();
+        }
+
+        RemoteTreeDeleter.Report report = commandSFTP.deleteRemoteTree(new File(testDir).getAbsolutePath());
+        assertEquals(report.isSuccess(), true);
+        assertEquals(report.getFiles(), 3 * 71);
+        assertEquals(report.getDirectories(), 7);
+        assertEquals(new File(testDir).exists(), false);
+    }
+
+    @Test
+    public void testDeleteRemoteTreeProgress() throws Exception {
+        String testDir = new File("TESTPROGRESSDIR").getAbsolutePath();
+        for (int i = 0; i < 4; ++i) {
+            File dir = new File(testDir + "/sub" + i);
+            dir.mkdirs();
+            for (int j = 0; j < 499; ++j) {
+                new File(dir, "file" + j).createNewFile();
+            }
+        }
+
+        //2001 removals from parallel batches are reported at 1000 and 2000, once each.
+        List<Long> reported = Collections.synchronizedList(new ArrayList<>());
+        RemoteTreeDeleter deleter = new RemoteTreeDeleter(commandSFTP.getChannelPool(), 4);
+        RemoteTreeDeleter.Report report = deleter.delete(testDir, progress -> reported.add(progress.getFiles()));
+        assertEquals(report.isSuccess(), true);
+        assertEquals(report.getFiles() + report.getDirectories(), 2001);
+        assertEquals(reported.size(), 2);
+    }
+
+    @Test
+    public void testDeleteRemoteTreeKeepsLinkTarget() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String targetDir = localDir + "/TESTLINKTARGET";
+        String linkDir = localDir + "/TESTLINKDIR";
+        new File(targetDir).mkdirs();
+        Files.write(Paths.get(targetDir, "kept"), new byte[10]);
+        Files.createSymbolicLink(Paths.get(linkDir), Paths.get(targetDir));
+
+        //The failed get stats the link, which caches the target's attributes under the link's path.
+        try {
+            commandSFTP.getRemoteFile(linkDir);
+        }
+        catch (SftpException e) {
+            assertEquals(new File(targetDir, "kept").exists(), true);
+        }
+        boolean refused = false;
+        try {
+            commandSFTP.deleteRemoteTree(linkDir);
+        }
+        catch (SftpException e) {
+            refused = true;
+        }
+
+        assertEquals(refused, true);
+        assertEquals(new File(targetDir, "kept").exists(), true);
+        Files.delete(Paths.get(linkDir));
+        commandSFTP.deleteRemoteDirectory(targetDir);
+    }
+
+    @Test
+    public void testUploadRemoteDirectory() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String sourceDir = "TESTUPTREESRC";
+        String testDir = localDir + "/TESTUPTREEDIR";
+        byte [] data = new byte[100 * 1024];
+        new Random(11).nextBytes(data);
+
+        new File(sourceDir + "/a/b").mkdirs();
+        new File(sourceDir + "/empty").mkdirs();
+        Files.write(Paths.get(sourceDir, "top"), data);
+        Files.write(Paths.get(sourceDir, "a", "b", "deep"), data);
+        Files.createSymbolicLink(Paths.get(sourceDir, "link"), Paths.get("top"));
+
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.createRemoteDir(testDir);
+        commandSFTP.changeRemoteDirectory(testDir);
+        TransferReport report = commandSFTP.uploadRemoteDirectory(sourceDir);
+
+        assertEquals(report.getSuccessCount(), 2);
+        assertEquals(report.getFailures().size(), 1);
+        assertEquals(report.getFailures().get(0).getSource().endsWith("link"), true);
+        assertEquals(Arrays.equals(Files.readAllBytes(Paths.get(testDir, sourceDir, "a", "b", "deep")), data), true);
+        assertEquals(new File(testDir + "/" + sourceDir + "/empty").isDirectory(), true);
+        assertEquals(new File(testDir + "/" + sourceDir + "/link").exists(), false);
+
+        //Uploading again reuses the directories that now exist.
+        report = commandSFTP.uploadRemoteDirectory(sourceDir);
+        assertEquals(report.getSuccessCount(), 2);
+
+        commandSFTP.changeRemoteDirectory(localDir);
+        commandSFTP.deleteRemoteDirectory(testDir);
+        commandSFTP.deleteRemoteDirectory(localDir + "/" + sourceDir);
+    }
+
+    @Test
+    public void testDownloadRemoteDirectory() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String sourceDir = "TESTDOWNTREESRC";
+        String testDir = localDir + "/TESTDOWNTREEDIR";
+        byte [] data = new byte[64 * 1024];
+        new Random(13).nextBytes(data);
+
+        for (int i = 0; i < 4; ++i) {
+            File dir = new File(sourceDir + "/sub" + i + "/inner");
+            dir.mkdirs();
+            for (int j = 0; j < 100; ++j) {
+                new File(dir.getParentFile(), "file" + j).createNewFile();
+            }
+            Files.write(new File(dir, "data").toPath(), data);
+        }
+        new File(sourceDir + "/empty").mkdirs();
+        Files.createSymbolicLink(Paths.get(sourceDir, "link"), Paths.get("sub0"));
+        new File(testDir).mkdirs();
+
+        commandSFTP.changeCurrentLocalDirectory(testDir);
+        commandSFTP.changeRemoteDirectory(localDir);
+        TransferReport report = commandSFTP.downloadRemoteDirectory(sourceDir);
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+
+        assertEquals(report.getSuccessCount(), 4 * 101);
+        assertEquals(report.getFailures().size(), 1);
+        assertEquals(report.getFailures().get(0).getSource().endsWith("link"), true);
+        assertEquals(report.getTotalBytes(), 4 * data.length);
+        File downloaded = new File(testDir + "/" + sourceDir);
+        assertEquals(Arrays.equals(Files.readAllBytes(Paths.get(downloaded.getPath(), "sub3", "inner", "data")), data), true);
+        assertEquals(new File(downloaded, "sub2/file99").exists(), true);
+        assertEquals(new File(downloaded, "empty").isDirectory(), true);
+        assertEquals(new File(downloaded, "link").exists(), false);
+
+        //The test server refuses to remove a link to a directory.
+        Files.delete(Paths.get(sourceDir, "link"));
+        commandSFTP.deleteRemoteDirectory(testDir);
+        commandSFTP.deleteRemoteDirectory(localDir + "/" + sourceDir);
+    }
+
+    @Test
+    public void testDownloadWideRemoteDirectory() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String sourceDir = "TESTWIDETREESRC";
+        String testDir = localDir + "/TESTWIDETREEDIR";
+        int width = 2 * TransferEngine.QUEUE_CAPACITY + 88;
+
+        for (int i = 0; i < width; ++i) {
+            File dir = new File(sourceDir + "/sub" + i);
+            dir.mkdirs();
+            new File(dir, "file").createNewFile();
+        }
+        for (int i = 0; i < 10; ++i) {
+            new File(sourceDir + "/top" + i).createNewFile();
+        }
+        new File(testDir).mkdirs();
+
+        commandSFTP.changeCurrentLocalDirectory(testDir);
+        commandSFTP.changeRemoteDirectory(localDir);
+        TransferReport report = commandSFTP.downloadRemoteDirectory(sourceDir);
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+
+        assertEquals(report.getFailures().size(), 0);
+        assertEquals(report.getSuccessCount(), width + 10);
+        File downloaded = new File(testDir + "/" + sourceDir);
+        assertEquals(downloaded.list().length, width + 10);
+        for (int i = 0; i < width; ++i) {
+            assertEquals(new File(downloaded, "sub" + i + "/file").exists(), true);
+        }
+
+        commandSFTP.deleteRemoteDirectory(testDir);
+        commandSFTP.deleteRemoteDirectory(localDir + "/" + sourceDir);
+    }
+
+    @Test
+    public void testSyncDirectories() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String syncLocal = localDir + "/TESTSYNCLOCAL";
+        String syncRemote = localDir + "/TESTSYNCREMOTE";
+        new File(syncLocal + "/sub").mkdirs();
+        new File(syncRemote).mkdirs();
+        Files.write(Paths.get(syncLocal, "a"), new byte[100]);
+        Files.write(Paths.get(syncLocal, "sub", "b"), new byte[200]);
+
+        commandSFTP.changeCurrentLocalDirectory(syncLocal);
+        commandSFTP.changeRemoteDirectory(syncRemote);
+        TransferReport report = commandSFTP.syncDirectories(true, false);
+        assertEquals(report.getSuccessCount(), 2);
+        assertEquals(new File(syncRemote + "/sub/b").length(), 200);
+        assertEquals(new File(syncRemote + "/a").lastModified() / 1000, new File(syncLocal + "/a").lastModified() / 1000);
+        assertEquals(commandSFTP.planSync(true, true).isEmpty(), true);
+
+        //A dry run only plans the changed file and the remote extra.
+        Files.write(Paths.get(syncLocal, "a"), new byte[150]);
+        Files.write(Paths.get(syncRemote, "extra"), new byte[50]);
+        DirectorySync.Plan plan = commandSFTP.planSync(true, true);
+        assertEquals(plan.count(DirectorySync.Kind.UPLOAD), 1);
+        assertEquals(plan.bytes(DirectorySync.Kind.UPLOAD), 150);
+        assertEquals(plan.count(DirectorySync.Kind.DELETE), 1);
+        assertEquals(plan.bytes(DirectorySync.Kind.DELETE), 50);
+        assertEquals(new File(syncRemote + "/extra").exists(), true);
+
+        report = commandSFTP.syncDirectories(true, true);
+        assertEquals(report.getSuccessCount(), 1);
+        assertEquals(new File(syncRemote + "/a").length(), 150);
+        assertEquals(new File(syncRemote + "/extra").exists(), false);
+
+        //Pulling brings back a remote change.
+        Files.write(Paths.get(syncRemote, "sub", "b"), new byte[300]);
+        report = commandSFTP.syncDirectories(false, false);
+        assertEquals(report.getSuccessCount(), 1);
+        assertEquals(new File(syncLocal + "/sub/b").length(), 300);
+
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.changeRemoteDirectory(localDir);
+        commandSFTP.deleteRemoteDirectory(syncLocal);
+        commandSFTP.deleteRemoteDirectory(syncRemote);
+    }
+
+    @Test
+    public void testSyncKeepsTargetBelowSourceLink() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String syncLocal = localDir + "/TESTSYNCLINKLOCAL";
+        String syncRemote = localDir + "/TESTSYNCLINKREMOTE";
+        String linkTarget = localDir + "/TESTSYNCLINKTARGET";
+        new File(syncLocal).mkdirs();
+        new File(syncRemote + "/linked").mkdirs();
+        new File(linkTarget).mkdirs();
+        Files.write(Paths.get(syncRemote, "linked", "x"), new byte[100]);
+        Files.createSymbolicLink(Paths.get(syncLocal, "linked"), Paths.get(linkTarget));
+
+        commandSFTP.changeCurrentLocalDirectory(syncLocal);
+        commandSFTP.changeRemoteDirectory(syncRemote);
+        DirectorySync.Plan plan = commandSFTP.planSync(true, true);
+        assertEquals(plan.count(DirectorySync.Kind.SKIP), 1);
+        assertEquals(plan.count(DirectorySync.Kind.DELETE), 0);
+        commandSFTP.syncDirectories(true, true);
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.changeRemoteDirectory(localDir);
+        assertEquals(new File(syncRemote + "/linked/x").exists(), true);
+
+        Files.delete(Paths.get(syncLocal, "linked"));
+        commandSFTP.deleteRemoteDirectory(syncLocal);
+        commandSFTP.deleteRemoteDirectory(syncRemote);
+        commandSFTP.deleteRemoteDirectory(linkTarget);
+    }
+
+    @Test
+    public void testChecksumManifest() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String testDir = localDir + "/TESTCHECKSUMDIR";
+        String testFile = "TESTCHECKSUMFILE";
+        byte [] data = new byte[50 * 1024];
+        new Random(17).nextBytes(data);
+        TransferChecksum expected = new TransferChecksum(TransferChecksum.Algorithm.SHA256);
+        expected.update(data, 0, data.length);
+        String line = TransferChecksum.manifestLine(expected.getValue(), testFile);
+
+        new File(testDir).mkdirs();
+        Files.write(Paths.get(testFile), data);
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.changeRemoteDirectory(testDir);
+        commandSFTP.setChecksumManifest(true);
+        commandSFTP.uploadRemoteFile(testFile);
+        assertEquals(new String(Files.readAllBytes(Paths.get(testDir, testFile + ".sha256"))), line);
+
+        new File(testFile).delete();
+        commandSFTP.getRemoteFile(testFile);
+        commandSFTP.setChecksumManifest(false);
+        assertEquals(Arrays.equals(Files.readAllBytes(Paths.get(testFile)), data), true);
+        assertEquals(new String(Files.readAllBytes(Paths.get(testFile + ".sha256"))), line);
+
+        new File(testFile).delete();
+        new File(testFile + ".sha256").delete();
+        commandSFTP.changeRemoteDirectory(localDir);
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testVerifyChecksums() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String testDir = localDir + "/TESTVERIFYDIR";
+        String testFile = "TESTVERIFYFILE";
+        new File(testDir + "/local").mkdirs();
+        Files.write(Paths.get(testDir, testFile), new byte[20 * 1024]);
+
+        CommandSFTP verifying = new CommandSFTP("localhost", SFTPInMemoryServer.PORT, hostFile);
+        verifying.setJournalFile(journalFile());
+        verifying.setUser(new User("verify user", "password"));
+        assertEquals(verifying.connect(), true);
+        verifying.changeRemoteDirectory(testDir);
+        verifying.changeCurrentLocalDirectory(testDir + "/local");
+
+        //Transfers aren't checked against the server unless asked to.
+        int commands = server.getExecCommands().size();
+        verifying.getRemoteFile(testFile);
+        assertEquals(server.getExecCommands().size(), commands);
+
+        verifying.setVerifyChecksums(true);
+        verifying.getRemoteFile(testFile);
+        assertEquals(server.getExecCommands().size(), commands + 1);
+        assertEquals(server.getExecCommands().get(commands).startsWith("sha256sum "), true);
+
+        //A server without the command is asked once, then not again on this connection.
+        server.setExecPath("/nonexistent");
+        try {
+            verifying.getRemoteFile(testFile);
+            verifying.getRemoteFile(testFile);
+        }
+        finally {
+            server.setExecPath(null);
+        }
+        assertEquals(server.getExecCommands().size(), commands + 2);
+        assertEquals(new File(testDir + "/local/" + testFile).length(), 20 * 1024L);
+
+        verifying.quit();
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testTransferMetrics() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String testDir = "TESTMETRICSDIR";
+        String testFile = "TESTMETRICSFILE";
+        byte [] data = new byte[20 * 1024];
+        TransferMetrics metrics = commandSFTP.getMetrics();
+        long uploaded = metrics.getBytesUploaded();
+        long downloaded = metrics.getBytesDownloaded();
+
+        assertEquals(ManagementFactory.getPlatformMBeanServer().isRegistered(metrics.getObjectName()), true);
+        assertEquals(ManagementFactory.getPlatformMBeanServer().getAttribute(metrics.getObjectName(),
+                "BytesUploaded"), uploaded);
+
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.changeRemoteDirectory(localDir);
+        commandSFTP.createRemoteDir(testDir);
+        commandSFTP.changeRemoteDirectory(testDir);
+        Files.write(Paths.get(testFile), data);
+        commandSFTP.uploadRemoteFile(testFile);
+        new File(testFile).delete();
+        commandSFTP.getRemoteFile(testFile);
+
+        assertEquals(metrics.getBytesUploaded() - uploaded, data.length);
+        assertEquals(metrics.getBytesDownloaded() - downloaded, data.length);
+        assertEquals(metrics.getOperationCounts().get("mkdir") > 0, true);
+        assertEquals(metrics.getOperationCounts().get("cd") > 0, true);
+        assertEquals(metrics.getOperationCounts().get("get") > 0, true);
+
+        //Only the server listing is timed, the second listing is a cache hit.
+        Long listed = metrics.getOperationCounts().get("ls");
+        commandSFTP.listRemote(localDir + "/" + testDir, entry -> true);
+        commandSFTP.listRemote(localDir + "/" + testDir, entry -> true);
+        assertEquals(metrics.getOperationCounts().get("ls") - (listed == null ? 0 : listed), 1L);
+
+        new File(testFile).delete();
+        commandSFTP.changeRemoteDirectory(localDir);
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testThroughputProfile() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.changeRemoteDirectory(localDir);
+
+        //Connecting doesn't write a probe into the remote directory unless measuring was asked for.
+        assertEquals(commandSFTP.getThroughputProfile().isMeasured(), false);
+        ThroughputProfile profile = commandSFTP.tuneThroughput();
+        assertEquals(profile.getRttMillis() > 0, true);
+        assertEquals(profile.getBandwidth() > 0, true);
+        assertEquals(commandSFTP.getChannelPool().getBulkRequests(), profile.getBulkRequests());
+        assertEquals(commandSFTP.getMetrics().getThroughputProfile(), profile.toString());
+        assertEquals(new File(localDir).list((dir, name) -> name.startsWith(".throughput-probe")).length, 0);
+
+        ThroughputProfile manual = new ThroughputProfile(48, 128 * 1024);
+        commandSFTP.setThroughputProfile(manual);
+        assertEquals(commandSFTP.getChannelPool().execute(ChannelSftp::getBulkRequests).intValue(), 48);
+        assertEquals(commandSFTP.getMetrics().dump().contains("profile " + manual), true);
+
+        //Transfers still work with the bigger buffers.
+        String testFile = "TESTTHROUGHPUTFILE";
+        byte [] data = new byte[300 * 1024];
+        new Random(5).nextBytes(data);
+        Files.write(Paths.get(testFile), data);
+        commandSFTP.createRemoteDir("TESTTHROUGHPUTDIR");
+        commandSFTP.changeRemoteDirectory("TESTTHROUGHPUTDIR");
+        commandSFTP.uploadRemoteFile(testFile);
+        assertEquals(Arrays.equals(Files.readAllBytes(Paths.get("TESTTHROUGHPUTDIR", testFile)), data), true);
+
+        new File(testFile).delete();
+        commandSFTP.changeRemoteDirectory(localDir);
+        commandSFTP.deleteRemoteDirectory("TESTTHROUGHPUTDIR");
+        commandSFTP.setThroughputProfile(ThroughputProfile.defaults());
+    }
+
+    @Test
+    public void testCipherSelection() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String testFile = "TESTCIPHERFILE";
+        Files.write(Paths.get(testFile), new byte[200 * 1024]);
+
+        //The zero filled sample compresses, so the session negotiates zlib.
+        CommandSFTP selecting = new CommandSFTP("localhost", SFTPInMemoryServer.PORT, hostFile);
+        selecting.setJournalFile(journalFile());
+        selecting.setUser(new User("remote user", "password"));
+        selecting.setCipherSelection(true);
+        selecting.setCompressionSample(testFile);
+        outContent.reset();
+        assertEquals(selecting.connect(), true);
+        assertEquals(outContent.toString().contains("Compression: " + CipherSelector.COMPRESSION), true);
+
+        selecting.changeCurrentLocalDirectory(localDir);
+        selecting.changeRemoteDirectory(localDir);
+        selecting.createRemoteDir("TESTCIPHERDIR");
+        selecting.changeRemoteDirectory("TESTCIPHERDIR");
+        selecting.uploadRemoteFile(testFile);
+        assertEquals(new File("TESTCIPHERDIR/" + testFile).length(), 200 * 1024);
+
+        selecting.changeRemoteDirectory(localDir);
+        selecting.deleteRemoteDirectory("TESTCIPHERDIR");
+        selecting.quit();
+        new File(testFile).delete();
+    }
+
+    @Test
+    public void testReconnect() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String testDir = localDir + "/TESTRECONNECTDIR";
+        new File(testDir + "/local").mkdirs();
+        Files.write(Paths.get(testDir, "TESTRECONNECTFILE"), new byte[5000]);
+
+        CommandSFTP reconnecting = new CommandSFTP("localhost", SFTPInMemoryServer.PORT, hostFile);
+        reconnecting.setJournalFile(journalFile());
+        User user = new User("reconnect user", "password");
+        reconnecting.setUser(user);
+        reconnecting.setReconnect(3, 100);
+        assertEquals(reconnecting.connect(), true);
+        //The user no longer holds the password, the server checks the one kept for reconnecting.
+        assertEquals(user.getPassword(), "");
+        reconnecting.changeRemoteDirectory(testDir);
+        reconnecting.changeCurrentLocalDirectory(testDir + "/local");
+
+        //The server drops the connection, the next command reconnects and restores both directories.
+        assertEquals(server.dropSessions("reconnect user") > 0, true);
+        Thread.sleep(200);
+        outContent.reset();
+        reconnecting.getRemoteFile("TESTRECONNECTFILE");
+        assertEquals(outContent.toString().contains("Reconnected"), true);
+        assertEquals(new File(testDir + "/local/TESTRECONNECTFILE").length(), 5000L);
+        assertEquals(reconnecting.getRemoteDirectory(), testDir);
+        assertEquals(reconnecting.getLocalDirectory(), testDir + "/local");
+
+        //Without reconnect attempts a lost connection disconnects as before.
+        reconnecting.setReconnect(0, 0);
+        server.dropSessions("reconnect user");
+        boolean connected = true;
+        for (int i = 0; i < 100 && connected; ++i) {
+            Thread.sleep(20);
+            connected = reconnecting.checkConnect();
+        }
+        assertEquals(connected, false);
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testBatchRunner() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String testDir = localDir + "/TESTBATCHDIR";
+        new File(testDir + "/local").mkdirs();
+        Files.write(Paths.get(testDir, "local", "a"), new byte[100]);
+        Files.write(Paths.get(testDir, "local", "b"), new byte[200]);
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.changeRemoteDirectory(localDir);
+
+        String script = "# upload both files at once, then fetch them back\n"
+                + "cd " + testDir + "\n"
+                + "lcd " + testDir + "/local\n"
+                + "mkdir remote\n"
+                + "cd remote\n"
+                + "put a &\n"
+                + "put b &\n"
+                + "wait\n"
+                + "lcd " + testDir + "\n"
+                + "get a b\n"
+                + "rename a c\n"
+                + "-rm missing\n"
+                + "rm b c\n";
+        int exit = new BatchRunner(commandSFTP).run(new BufferedReader(new StringReader(script)));
+        assertEquals(exit, BatchRunner.EXIT_OK);
+        assertEquals(new File(testDir + "/a").length(), 100);
+        assertEquals(new File(testDir + "/b").length(), 200);
+        assertEquals(new File(testDir + "/remote").list().length, 0);
+
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.changeRemoteDirectory(localDir);
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testBatchRunnerPattern() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        String testDir = localDir + "/TESTBATCHPATTERNDIR";
+        new File(testDir + "/remote").mkdirs();
+        new File(testDir + "/local").mkdirs();
+        Files.write(Paths.get(testDir, "remote", "a.txt"), new byte[100]);
+        Files.write(Paths.get(testDir, "remote", "b.txt"), new byte[200]);
+        Files.write(Paths.get(testDir, "remote", "c.log"), new byte[300]);
+
+        String script = "cd " + testDir + "/remote\n"
+                + "lcd " + testDir + "/local\n"
+                + "get *.txt\n";
+        int exit = new BatchRunner(commandSFTP).run(new BufferedReader(new StringReader(script)));
+        assertEquals(exit, BatchRunner.EXIT_OK);
+        assertEquals(new File(testDir + "/local/a.txt").length(), 100L);
+        assertEquals(new File(testDir + "/local/b.txt").length(), 200L);
+        assertEquals(new File(testDir + "/local/c.log").exists(), false);
+
+        //A pattern that matches nothing fails the script.
+        script = "cd " + testDir + "/remote\n"
+                + "lcd " + testDir + "/local\n"
+                + "get *.none\n";
+        exit = new BatchRunner(commandSFTP).run(new BufferedReader(new StringReader(script)));
+        assertEquals(exit, BatchRunner.EXIT_FAILED);
+
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.changeRemoteDirectory(localDir);
+        commandSFTP.deleteRemoteDirectory(testDir);
+    }
+
+    @Test
+    public void testBatchRunnerFailure() throws Exception {
+        String localDir = new File("").getAbsolutePath();
+        commandSFTP.changeCurrentLocalDirectory(localDir);
+        commandSFTP.changeRemoteDirectory(localDir);
+
+        //The script stops at the failed get, so the directory is never created.
+        String script = "get TESTBATCHMISSING\n"
+                + "mkdir TESTBATCHNEVER\n";
+        int exit = new BatchRunner(commandSFTP).run(new BufferedReader(new StringReader(script)));
+        assertEquals(exit, BatchRunner.EXIT_FAILED);
+        assertEquals(new File(localDir + "/TESTBATCHNEVER").exists(), false);
+
+        //A failed background command fails the script at the next wait.
+        script = "get TESTBATCHMISSING &\n"
+                + "wait\n"
+                + "mkdir TESTBATCHNEVER\n";
+        exit = new BatchRunner(commandSFTP).run(new BufferedReader(new StringReader(script)));
+        assertEquals(exit, BatchRunner.EXIT_FAILED);
+        assertEquals(new File(localDir + "/TESTBATCHNEVER").exists(), false);
+
+        assertEquals(new BatchRunner(commandSFTP).run(new BufferedReader(new StringReader("cd . &\n"))),
+                BatchRunner.EXIT_FAILED);
+        assertEquals(new BatchRunner(commandSFTP).run(new BufferedReader(new StringReader("frobnicate\n"))),
+                BatchRunner.EXIT_FAILED);
+    }
+
     @Test
     public void testSetGetTimeOut() throws Exception {
         int timeout = 10000;
-        assertEquals(commandSFTP.getTimeout(), 0);
+        //Server alive messages are sent whenever the session's read timeout expires.
+        assertEquals(commandSFTP.getTimeout(), CommandSFTP.DEFAULT_KEEPALIVE_MILLIS);
         commandSFTP.setTimeout(timeout);
         assertEquals(commandSFTP.getTimeout(), timeout);
     }
@@ -0,0 +1,61 @@
+package com.company;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Throughput profile test cases
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class ThroughputProfileTest {
+    private final static double MB = 1024 * 1024;
+
+    @Test
+    public void testShortLinkKeepsDefaults() throws Exception {
+        //10 MB/s at 1 ms is 10 KB in flight, well under the default depth.
+        ThroughputProfile profile = ThroughputProfile.forLink(1, 10 * MB);
+        assertEquals(profile.getBulkRequests(), ThroughputProfile.DEFAULT_BULK_REQUESTS);
+        assertEquals(profile.getBufferSize(), ThroughputProfile.DEFAULT_BUFFER_SIZE);
+        assertEquals(profile.isMeasured(), true);
+    }
+
+    @Test
+    public void testLongFatLinkRaisesDepthAndBuffer() throws Exception {
+        //10 MB/s at 100 ms is 1 MB in flight, 32 requests of 32 KB.
+        ThroughputProfile profile = ThroughputProfile.forLink(100, 10 * MB);
+        assertEquals(profile.getBulkRequests(), 32);
+        assertEquals(profile.getBufferSize(), 1024 * 1024);
+
+        //Beyond the 2 MB window both are capped.
+        profile = ThroughputProfile.forLink(300, 100 * MB);
+        assertEquals(profile.getBulkRequests(), ThroughputProfile.MAX_BULK_REQUESTS);
+        assertEquals(profile.getBufferSize(), ThroughputProfile.MAX_BUFFER_SIZE);
+    }
+
+    @Test
+    public void testUnknownBandwidth() throws Exception {
+        ThroughputProfile profile = ThroughputProfile.forLink(50, -1);
+        assertEquals(profile.getBulkRequests(), ThroughputProfile.DEFAULT_BULK_REQUESTS);
+        assertEquals(profile.toString().contains("bandwidth unknown"), true);
+    }
+
+    @Test
+    public void testManualProfile() throws Exception {
+        ThroughputProfile profile = new ThroughputProfile(48, 256 * 1024);
+        assertEquals(profile.isMeasured(), false);
+        assertEquals(profile.toString(), "48 outstanding requests, 256 KB buffer");
+
+        for (int[] invalid : new int[][] {{0, 32 * 1024}, {65, 32 * 1024}, {16, 1024}, {16, 2 * 1024 * 1024}}) {
+            try {
+                new ThroughputProfile(invalid[0], invalid[1]);
+                fail("accepted " + invalid[0] + ", " + invalid[1]);
+            }
+            catch (IllegalArgumentException e) {
+                //expected
+            }
+        }
+    }
+}
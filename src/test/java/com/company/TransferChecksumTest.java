@@ -0,0 +1,59 @@
+package com.company;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Transfer checksum test cases
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class TransferChecksumTest {
+    private final static byte[] DATA = "abc".getBytes(StandardCharsets.UTF_8);
+    private final static String SHA256_ABC = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @Test
+    public void testWrapComputesWhileWriting() throws Exception {
+        TransferChecksum checksum = new TransferChecksum(TransferChecksum.Algorithm.SHA256);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (OutputStream out = checksum.wrap(sink)) {
+            out.write(DATA[0]);
+            out.write(DATA, 1, 2);
+        }
+        assertEquals(Arrays.equals(sink.toByteArray(), DATA), true);
+        assertEquals(checksum.getValue(), SHA256_ABC);
+    }
+
+    @Test
+    public void testCrc32() throws Exception {
+        TransferChecksum checksum = new TransferChecksum(TransferChecksum.Algorithm.CRC32);
+        checksum.update(DATA, 0, DATA.length);
+        assertEquals(checksum.getValue(), "352441c2");
+    }
+
+    @Test
+    public void testResumedPrefix() throws Exception {
+        File file = File.createTempFile("checksum", ".tmp");
+        file.deleteOnExit();
+        Files.write(file.toPath(), DATA);
+
+        TransferChecksum checksum = new TransferChecksum(TransferChecksum.Algorithm.SHA256);
+        checksum.update(file, 2);
+        checksum.update(DATA, 2, 1);
+        assertEquals(checksum.getValue(), SHA256_ABC);
+    }
+
+    @Test
+    public void testManifestAndQuote() throws Exception {
+        assertEquals(TransferChecksum.manifestLine(SHA256_ABC, "abc.txt"), SHA256_ABC + "  abc.txt\n");
+        assertEquals(TransferChecksum.quote("/it's here"), "'/it'\\''s here'");
+    }
+}
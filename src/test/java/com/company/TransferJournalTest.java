@@ -0,0 +1,83 @@
+package com.company;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Transfer journal test cases
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class TransferJournalTest {
+    private static final String HOST = "user@host:22";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private String fileName;
+
+    @Before
+    public void setUp() throws Exception {
+        fileName = folder.getRoot() + "/sftp_journal";
+    }
+
+    private static TransferJournal.Entry entry(String source) {
+        return new TransferJournal.Entry(TransferJournal.GET, HOST, source, "/local" + source, 100, 5, 0);
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        TransferJournal journal = new TransferJournal(fileName);
+        journal.begin(entry("/a"));
+        journal.update(journal.pending(HOST).get(0), 40);
+        journal.checkpoint();
+
+        List<TransferJournal.Entry> pending = new TransferJournal(fileName).pending(HOST);
+        assertEquals(1, pending.size());
+        assertEquals(40, pending.get(0).getConfirmed());
+    }
+
+    @Test
+    public void testSharedFileKeepsEntriesOfBoth() throws Exception {
+        TransferJournal first = new TransferJournal(fileName);
+        TransferJournal second = new TransferJournal(fileName);
+        TransferJournal.Entry a = entry("/a");
+        first.begin(a);
+        second.begin(entry("/b"));
+        first.begin(entry("/c"));
+        first.complete(a);
+
+        assertEquals(2, new TransferJournal(fileName).pending(HOST).size());
+        assertEquals(2, second.pending(HOST).size());
+    }
+
+    @Test
+    public void testCompletedElsewhereIsNotWrittenBack() throws Exception {
+        TransferJournal first = new TransferJournal(fileName);
+        first.begin(entry("/a"));
+        TransferJournal second = new TransferJournal(fileName);
+        first.complete(entry("/a"));
+
+        //The second journal loaded /a but never touched it, so its own save doesn't bring it back.
+        second.begin(entry("/b"));
+        List<TransferJournal.Entry> pending = new TransferJournal(fileName).pending(HOST);
+        assertEquals(1, pending.size());
+        assertEquals("/b", pending.get(0).getSource());
+    }
+
+    @Test
+    public void testNoTemporaryFilesLeft() throws Exception {
+        TransferJournal journal = new TransferJournal(fileName);
+        journal.begin(entry("/a"));
+        journal.complete(entry("/a"));
+        for (File file : folder.getRoot().listFiles()) {
+            assertEquals(false, file.getName().endsWith(".tmp"));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.company;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Transfer metrics test cases
+ * @version 1.0 alpha
+ * @since October 18, 2026
+ */
+public class TransferMetricsTest {
+    private TransferMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = new TransferMetrics();
+    }
+
+    @Test
+    public void testMonitorSkipsResumedBytes() throws Exception {
+        SftpProgressMonitor monitor = metrics.monitor(false, null, 100);
+        monitor.init(SftpProgressMonitor.GET, "a", "b", 300);
+        monitor.count(100);
+        monitor.count(50);
+        monitor.end();
+        metrics.recordTransfer(false, true, 10);
+        assertEquals(metrics.getBytesDownloaded(), 50);
+        assertEquals(metrics.getFilesDownloaded(), 1);
+        assertEquals(metrics.getBytesUploaded(), 0);
+        assertTrue(metrics.getDownloadThroughput() > 0);
+    }
+
+    @Test
+    public void testLatencyHistogram() throws Exception {
+        metrics.record("ls", TimeUnit.MILLISECONDS.toNanos(1), false);
+        metrics.record("ls", TimeUnit.MILLISECONDS.toNanos(150), false);
+        metrics.record("ls", TimeUnit.SECONDS.toNanos(60), true);
+
+        long[] bounds = metrics.getLatencyBucketBoundsMillis();
+        long[] histogram = metrics.getLatencyHistograms().get("ls");
+        assertEquals(histogram.length, bounds.length + 1);
+        assertEquals(histogram[0], 1);
+        assertEquals(histogram[7], 1);
+        assertEquals(histogram[bounds.length], 1);
+        assertEquals((long)metrics.getOperationCounts().get("ls"), 3);
+        assertEquals((long)metrics.getOperationErrors().get("ls"), 1);
+    }
+
+    @Test
+    public void testTimeCountsFailures() throws Exception {
+        try {
+            metrics.time("rm", () -> {
+                throw new SftpException(ChannelSftp.SSH_FX_NO_SUCH_FILE, "No such file");
+            });
+            fail();
+        }
+        catch (SftpException e) {
+            assertEquals(e.id, ChannelSftp.SSH_FX_NO_SUCH_FILE);
+        }
+        assertEquals((long)metrics.time("cd", () -> 7L), 7L);
+        assertEquals((long)metrics.getOperationErrors().get("rm"), 1);
+        assertEquals((long)metrics.getOperationErrors().get("cd"), 0);
+
+        metrics.reset();
+        assertTrue(metrics.getOperationCounts().isEmpty());
+    }
+
+    @Test
+    public void testDumpTo() throws Exception {
+        File file = File.createTempFile("metrics", ".txt");
+        file.deleteOnExit();
+        metrics.recordTransfer(true, false, 5);
+        assertTrue(metrics.dumpTo(file.getPath()));
+        assertTrue(metrics.dumpTo(file.getPath()));
+        String dump = new String(Files.readAllBytes(file.toPath()));
+        assertTrue(dump.contains("failed transfers 1"));
+        assertTrue(dump.contains("put count=1 errors=1"));
+        assertEquals(dump.split("failed transfers").length, 3);
+    }
+}